@@ -0,0 +1,177 @@
+package com.exadel.aem.benchmarks;
+
+import com.day.cq.commons.jcr.JcrConstants;
+import com.day.cq.wcm.api.Page;
+import com.day.cq.wcm.api.PageManager;
+import com.exadel.aem.core.Constants;
+import com.exadel.aem.core.dto.AlbumDto;
+import com.exadel.aem.core.dto.ArtistDto;
+import com.exadel.aem.core.dto.TrackDto;
+import com.exadel.aem.core.services.AlbumSaver;
+import com.exadel.aem.core.services.ResourceResolverHost;
+import com.exadel.aem.core.services.impl.AlbumSaverImpl;
+import com.exadel.aem.core.services.impl.IngestionMetricsImpl;
+import org.apache.sling.api.resource.PersistenceException;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ResourceResolverFactory;
+import org.apache.sling.api.resource.ResourceUtil;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AlbumSaverBenchmark {
+
+    private static final int TRACKS_PER_ALBUM = 12;
+    private static final int ALBUMS_PER_ARTIST = 5;
+
+    private static final Map<String, Object> CONTAINER_PROPERTIES = Collections.singletonMap(
+            JcrConstants.JCR_PRIMARYTYPE,
+            JcrConstants.NT_UNSTRUCTURED);
+
+    @Param({"10", "1000", "10000"})
+    private int albumCount;
+
+    // NEW saves the albums into empty folders, UNCHANGED saves them over the same albums stored before
+    @Param({"NEW", "UNCHANGED"})
+    private String scenario;
+
+    private BenchmarkAemContext context;
+
+    private AlbumSaver albumSaver;
+
+    private List<AlbumDto> albums;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = new BenchmarkAemContext(ResourceResolverType.RESOURCERESOLVER_MOCK);
+        context.start();
+        // Like the real host, every call gets a resolver of its own
+        ResourceResolverFactory resolverFactory = context.getService(ResourceResolverFactory.class);
+        context.registerService(ResourceResolverHost.class, routine -> {
+            try (ResourceResolver resolver = resolverFactory.getServiceResourceResolver(null)) {
+                routine.accept(withPageStructure(resolver));
+            }
+        });
+        context.registerInjectActivateService(new IngestionMetricsImpl());
+        // The mock repository is not safe for concurrent writers, so the parallel mode of the saver is not measured
+        // here. It needs a benchmark over a real Oak repository
+        albumSaver = context.registerInjectActivateService(new AlbumSaverImpl(), "parallelism", 1);
+    }
+
+    @Setup(Level.Iteration)
+    public void prepareRepository() throws Exception {
+        ResourceResolver resolver = context.resourceResolver();
+        for (String path : new String[] {Constants.ALBUMS_FOLDER, Constants.ARTISTS_FOLDER}) {
+            Resource folder = resolver.getResource(path);
+            if (folder != null) {
+                resolver.delete(folder);
+            }
+            ResourceUtil.getOrCreateResource(resolver, path, CONTAINER_PROPERTIES, null, false);
+        }
+        resolver.commit();
+        if ("UNCHANGED".equals(scenario)) {
+            albumSaver.save(createAlbums(albumCount));
+        }
+        // Fresh DTOs so that slugs and fingerprints memoized in the previous iteration are computed again
+        albums = createAlbums(albumCount);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.stop();
+    }
+
+    @Benchmark
+    public void save() throws Exception {
+        albumSaver.save(albums);
+    }
+
+    private static List<AlbumDto> createAlbums(int count) {
+        List<AlbumDto> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            List<TrackDto> tracks = new ArrayList<>(TRACKS_PER_ALBUM);
+            for (int track = 1; track <= TRACKS_PER_ALBUM; track++) {
+                tracks.add(new TrackDto("Track " + track + " of album " + i, "3:" + (10 + track)));
+            }
+            result.add(new AlbumDto(
+                    "Album " + i,
+                    new ArtistDto("Artist " + (i / ALBUMS_PER_ARTIST), "Description of artist " + i / ALBUMS_PER_ARTIST),
+                    2000 + i % 24,
+                    "/content/dam/sample-project/albums/album-" + i + ".jpg",
+                    tracks));
+        }
+        return result;
+    }
+
+    // In AEM the container resource of a new page comes from the page template, which the mock page manager
+    // does not apply, so it is created along with the page
+    private static ResourceResolver withPageStructure(ResourceResolver resolver) {
+        return (ResourceResolver) Proxy.newProxyInstance(
+                AlbumSaverBenchmark.class.getClassLoader(),
+                new Class<?>[] {ResourceResolver.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(resolver, method, args);
+                    if ("adaptTo".equals(method.getName()) && args[0] == PageManager.class && result != null) {
+                        return withPageStructure((PageManager) result, resolver);
+                    }
+                    return result;
+                });
+    }
+
+    private static PageManager withPageStructure(PageManager pageManager, ResourceResolver resolver) {
+        return (PageManager) Proxy.newProxyInstance(
+                AlbumSaverBenchmark.class.getClassLoader(),
+                new Class<?>[] {PageManager.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(pageManager, method, args);
+                    if ("create".equals(method.getName()) && result instanceof Page) {
+                        createContainer(resolver, (Page) result);
+                    }
+                    return result;
+                });
+    }
+
+    private static void createContainer(ResourceResolver resolver, Page page) throws PersistenceException {
+        ResourceUtil.getOrCreateResource(
+                resolver,
+                page.getPath() + "/" + Constants.PAGE_CONTAINER_PATH,
+                CONTAINER_PROPERTIES,
+                null,
+                false);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.exadel.aem.benchmarks;
+
+import io.wcm.testing.mock.aem.context.AemContextImpl;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+
+class BenchmarkAemContext extends AemContextImpl {
+
+    BenchmarkAemContext(ResourceResolverType resourceResolverType) {
+        setResourceResolverType(resourceResolverType);
+    }
+
+    void start() {
+        setUp();
+    }
+
+    void stop() {
+        tearDown();
+    }
+}
@@ -0,0 +1,33 @@
+package com.exadel.aem.benchmarks;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class BenchmarkRunner {
+
+    private static final String OPTION_RESULT_FORMAT = "-rf";
+    private static final String OPTION_RESULT_FILE = "-rff";
+
+    private static final String DEFAULT_RESULT_FORMAT = "json";
+    private static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Results are written as JSON to jmh-result.json unless another format or file is given in the command line
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        if (!arguments.contains(OPTION_RESULT_FORMAT)) {
+            arguments.add(OPTION_RESULT_FORMAT);
+            arguments.add(DEFAULT_RESULT_FORMAT);
+        }
+        if (!arguments.contains(OPTION_RESULT_FILE)) {
+            arguments.add(OPTION_RESULT_FILE);
+            arguments.add(DEFAULT_RESULT_FILE);
+        }
+        Main.main(arguments.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,123 @@
+package com.exadel.aem.benchmarks;
+
+import com.exadel.aem.core.dto.AlbumDto;
+import com.exadel.aem.core.services.impl.TrendyBeatzParser;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParsingBenchmark {
+
+    private static final String LIST_URL = "https://trendybeatz.com/artist-albums";
+    private static final String ALBUM_URL = "https://trendybeatz.com/artist-albums/19999/davido-timeless-album";
+
+    private static final String LINK_PATTERN = "trendybeatz\\.com/artist-albums/\\d+/[\\w-]+$";
+    private static final String TRACK_LINK_PATTERN = "trendybeatz\\.com/download-mp3/\\d+/[\\w-]+$";
+
+    private static final int EXPECTED_LINKS = 80;
+    private static final int EXPECTED_TRACKS = 17;
+    private static final int LINK_BUDGET = 10;
+
+    private TrendyBeatzParser parser;
+
+    private String albumListHtml;
+    private String albumHtml;
+
+    private Document albumListDocument;
+    private Document albumDocument;
+
+    @Setup
+    public void setUp() throws IOException {
+        parser = new TrendyBeatzParser(Pattern.compile(LINK_PATTERN), Pattern.compile(TRACK_LINK_PATTERN));
+        albumListHtml = readFixture("album-list.html");
+        albumHtml = readFixture("album.html");
+        albumListDocument = Jsoup.parse(albumListHtml, LIST_URL);
+        albumDocument = Jsoup.parse(albumHtml, ALBUM_URL);
+
+        List<String> links = parser.parseAlbumLinks(albumListDocument);
+        if (links.size() != EXPECTED_LINKS) {
+            throw new IllegalStateException("Expected " + EXPECTED_LINKS + " album links, got " + links.size());
+        }
+        if (!links.equals(scanAlbumList())) {
+            throw new IllegalStateException("Scanned album links differ from the parsed ones");
+        }
+        AlbumDto album = parser.parseAlbum(albumDocument);
+        if (album == null || !"davido-timeless-2023".equals(album.getSlug())
+                || album.getTracks().size() != EXPECTED_TRACKS) {
+            throw new IllegalStateException("The album fixture was not parsed as expected");
+        }
+    }
+
+    @Benchmark
+    public List<String> parseAlbumList() {
+        return parser.parseAlbumLinks(Jsoup.parse(albumListHtml, LIST_URL));
+    }
+
+    @Benchmark
+    public List<String> scanAlbumList() throws IOException {
+        List<String> result = new ArrayList<>();
+        parser.scanAlbumLinks(new StringReader(albumListHtml), result::add);
+        return result;
+    }
+
+    @Benchmark
+    public List<String> scanAlbumListWithBudget() throws IOException {
+        // Stops after the first 10 distinct links as the downloader does with the default settings
+        Set<String> result = new LinkedHashSet<>();
+        parser.scanAlbumLinks(new StringReader(albumListHtml), link -> {
+            result.add(link);
+            return result.size() < LINK_BUDGET;
+        });
+        return new ArrayList<>(result);
+    }
+
+    @Benchmark
+    public AlbumDto parseAlbum() {
+        return parser.parseAlbum(Jsoup.parse(albumHtml, ALBUM_URL));
+    }
+
+    @Benchmark
+    public List<String> extractAlbumLinks() {
+        return parser.parseAlbumLinks(albumListDocument);
+    }
+
+    @Benchmark
+    public AlbumDto extractAlbum() {
+        return parser.parseAlbum(albumDocument);
+    }
+
+    private static String readFixture(String name) throws IOException {
+        try (InputStream input = ParsingBenchmark.class.getResourceAsStream("/fixtures/trendybeatz/" + name)) {
+            if (input == null) {
+                throw new IOException("Fixture not found: " + name);
+            }
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.exadel.aem.benchmarks;
+
+import com.exadel.aem.core.dto.AlbumDto;
+import com.exadel.aem.core.dto.ArtistDto;
+import com.exadel.aem.core.utils.SlugUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SlugBenchmark {
+
+    private static final String[] SAMPLES = {
+            "",
+            "   ",
+            "Burna Boy",
+            "  Wizkid  ",
+            "Asake & Olamide",
+            "Ruger - Ru The World (Deluxe Edition)",
+            "Rema_Rave-&-Roses--Ultra",
+            "Bella Shmurda: Hypeman!!!",
+            "Ólamidé – Unruly 🔥",
+            "ALL CAPS\tTITLE\n"
+    };
+
+    @Param({"Burna Boy", "Ruger - Ru The World (Deluxe Edition)", "Ólamidé – Unruly 🔥"})
+    private String title;
+
+    @Param({"Davido"})
+    private String artist;
+
+    @Param({"2023"})
+    private int year;
+
+    private AlbumDto album;
+
+    @Setup
+    public void setUp() {
+        for (String name : SAMPLES) {
+            for (String albumTitle : SAMPLES) {
+                verify(name, albumTitle, 0);
+                verify(name, albumTitle, 2023);
+            }
+        }
+        verify(artist, title, year);
+        album = newAlbum();
+    }
+
+    @Benchmark
+    public String legacyArtistSlug() {
+        return legacySlug(title);
+    }
+
+    @Benchmark
+    public String artistSlug() {
+        return SlugUtils.toSlug(title);
+    }
+
+    @Benchmark
+    public String legacyAlbumSlug() {
+        return legacyAlbumSlug(artist, title, year);
+    }
+
+    @Benchmark
+    public String albumSlug() {
+        return newAlbum().getSlug();
+    }
+
+    @Benchmark
+    public String memoizedAlbumSlug() {
+        return album.getSlug();
+    }
+
+    private AlbumDto newAlbum() {
+        return new AlbumDto(title, new ArtistDto(artist, null), year, null, Collections.emptyList());
+    }
+
+    private static void verify(String artistName, String albumTitle, int albumYear) {
+        if (!legacySlug(artistName).equals(new ArtistDto(artistName, null).getSlug())) {
+            throw new IllegalStateException("Artist slug differs from the legacy one for \"" + artistName + "\"");
+        }
+        AlbumDto album = new AlbumDto(
+                albumTitle,
+                new ArtistDto(artistName, null),
+                albumYear,
+                null,
+                Collections.emptyList());
+        if (!legacyAlbumSlug(artistName, albumTitle, albumYear).equals(album.getSlug())) {
+            throw new IllegalStateException("Album slug differs from the legacy one for \"" + albumTitle + "\"");
+        }
+    }
+
+    private static String legacySlug(String value) {
+        return StringUtils.defaultString(value).trim().replaceAll("[^\\w-]+", "-").toLowerCase();
+    }
+
+    private static String legacyAlbumSlug(String artistName, String albumTitle, int albumYear) {
+        String result = Stream.of(legacySlug(artistName), legacySlug(albumTitle))
+                .filter(StringUtils::isNotBlank)
+                .collect(Collectors.joining("-"));
+        if (albumYear > 0) {
+            result += "-" + albumYear;
+        }
+        return result;
+    }
+}
@@ -5,11 +5,22 @@ public class Constants {
     private static final String PROJECT_ROOT = "/content/sample-project/us/en";
     public static final String ARTISTS_FOLDER = PROJECT_ROOT + "/artists";
     public static final String ALBUMS_FOLDER = PROJECT_ROOT + "/albums";
+    public static final String VAR_FOLDER = "/var/sample-project";
 
     public static final String PAGE_CONTAINER_PATH = "jcr:content/root/container/container";
     public static final String ALBUM_RESOURCE_PATH = PAGE_CONTAINER_PATH + "/album";
     public static final String ARTIST_RESOURCE_PATH = PAGE_CONTAINER_PATH + "/artist";
 
+    public static final String ALBUM_RESOURCE_TYPE = "sample-project/components/album";
+    public static final String PN_ARTIST_ID = "artistId";
+    public static final String PN_YEAR = "year";
+
+    public static final String TRACKS_NODE = "tracks";
+    public static final String PN_TRACK_TITLES = "trackTitles";
+    public static final String PN_TRACK_DURATIONS = "trackDurations";
+
+    public static final String TRACK_MIGRATION_TOPIC = "com/exadel/aem/sample-project/tracks/migrate";
+
     private Constants() {
     }
 }
@@ -1,13 +1,19 @@
 package com.exadel.aem.core.dto;
 
+import com.exadel.aem.core.utils.SlugUtils;
 import org.apache.commons.lang3.StringUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public class AlbumDto {
 
+    private static final String FINGERPRINT_ALGORITHM = "SHA-256";
+    private static final char FIELD_SEPARATOR = '\u001F';
+    private static final char NULL_VALUE = '\u0000';
+
     private final String title;
 
     private final ArtistDto artist;
@@ -18,6 +24,10 @@ public class AlbumDto {
 
     private final List<TrackDto> tracks;
 
+    private String slug;
+
+    private String fingerprint;
+
     public AlbumDto(String title, ArtistDto artist, int year, String image, List<TrackDto> tracks) {
         this.title = title;
         this.artist = artist;
@@ -27,16 +37,14 @@ public class AlbumDto {
     }
 
     public String getSlug() {
-        String result = Stream.of(
-                        artist.getSlug(),
-                        StringUtils.defaultString(getTitle()).trim().replaceAll("[^\\w-]+", "-").toLowerCase()
-                )
-                .filter(StringUtils::isNotBlank)
-                .collect(Collectors.joining("-"));
-        if (getYear() > 0) {
-            result += "-" + getYear();
+        if (slug == null) {
+            String result = SlugUtils.join(artist.getSlug(), SlugUtils.toSlug(getTitle()));
+            if (getYear() > 0) {
+                result = result + "-" + getYear();
+            }
+            slug = result;
         }
-        return result;
+        return slug;
     }
 
     public String getTitle() {
@@ -59,6 +67,49 @@ public class AlbumDto {
         return tracks;
     }
 
+    public String getFingerprint() {
+        if (fingerprint == null) {
+            fingerprint = computeFingerprint();
+        }
+        return fingerprint;
+    }
+
+    private String computeFingerprint() {
+        StringBuilder content = new StringBuilder();
+        appendField(content, getTitle());
+        appendField(content, getArtist() != null ? getArtist().getName() : null);
+        appendField(content, getArtist() != null ? getArtist().getDescription() : null);
+        appendField(content, String.valueOf(getYear()));
+        appendField(content, getImage());
+        if (getTracks() != null) {
+            for (TrackDto track : getTracks()) {
+                appendField(content, track.getTitle());
+                appendField(content, track.getDuration());
+            }
+        }
+        try {
+            byte[] digest = MessageDigest
+                    .getInstance(FINGERPRINT_ALGORITHM)
+                    .digest(content.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder result = new StringBuilder(digest.length * 2);
+            for (byte value : digest) {
+                result.append(Character.forDigit((value >> 4) & 0xF, 16)).append(Character.forDigit(value & 0xF, 16));
+            }
+            return result.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(FINGERPRINT_ALGORITHM + " is not supported", e);
+        }
+    }
+
+    private static void appendField(StringBuilder builder, String value) {
+        if (value == null) {
+            builder.append(NULL_VALUE);
+        } else {
+            builder.append(value);
+        }
+        builder.append(FIELD_SEPARATOR);
+    }
+
     public boolean isValid() {
         return StringUtils.isNotBlank(getTitle()) && getArtist() != null && getArtist().isValid();
     }
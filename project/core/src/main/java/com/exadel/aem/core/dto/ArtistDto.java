@@ -1,5 +1,6 @@
 package com.exadel.aem.core.dto;
 
+import com.exadel.aem.core.utils.SlugUtils;
 import org.apache.commons.lang3.StringUtils;
 
 public class ArtistDto {
@@ -8,6 +9,8 @@ public class ArtistDto {
 
     private final String description;
 
+    private String slug;
+
     public ArtistDto(String name, String description) {
         this.name = name;
         this.description = description;
@@ -22,7 +25,10 @@ public class ArtistDto {
     }
 
     public String getSlug() {
-        return StringUtils.defaultString(getName()).trim().replaceAll("[^\\w-]+", "-").toLowerCase();
+        if (slug == null) {
+            slug = SlugUtils.toSlug(getName());
+        }
+        return slug;
     }
 
     public boolean isValid() {
@@ -0,0 +1,198 @@
+package com.exadel.aem.core.dto;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class RetrievalReport {
+
+    public static final String STAGE_TOTAL = "total";
+    public static final String STAGE_SAVE = "save";
+    public static final String STAGE_COMMIT = "commit";
+    public static final String STAGE_FETCH = "fetch";
+    public static final String STAGE_PARSE = "parse";
+    public static final String STAGE_SOURCE_PREFIX = "source:";
+
+    public enum State {
+        QUEUED,
+        RUNNING,
+        SUCCEEDED,
+        FAILED,
+        SKIPPED
+    }
+
+    public enum Counter {
+        RETRIEVED,
+        DUPLICATE,
+        CREATED,
+        UPDATED,
+        UNCHANGED,
+        FAILED,
+        COMMITS
+    }
+
+    private static final int MAX_ERRORS = 20;
+
+    private final String id;
+
+    private final long submitted;
+
+    private final Map<Counter, AtomicInteger> counters = new EnumMap<>(Counter.class);
+
+    // Kept in nanoseconds so that many short stages, such as parsing a page, add up without rounding
+    private final Map<String, AtomicLong> stageTimes = new ConcurrentHashMap<>();
+
+    private final Map<String, AtomicInteger> sourceCounts = new ConcurrentHashMap<>();
+
+    private final List<String> errors = new CopyOnWriteArrayList<>();
+
+    private volatile State state = State.QUEUED;
+
+    private volatile long started;
+
+    private volatile long finished;
+
+    private volatile String error;
+
+    private volatile String joinedId;
+
+    public RetrievalReport() {
+        this(UUID.randomUUID().toString());
+    }
+
+    public RetrievalReport(String id) {
+        this.id = id;
+        this.submitted = System.currentTimeMillis();
+        for (Counter counter : Counter.values()) {
+            counters.put(counter, new AtomicInteger());
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getSubmitted() {
+        return submitted;
+    }
+
+    public long getStarted() {
+        return started;
+    }
+
+    public long getFinished() {
+        return finished;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public String getJoinedId() {
+        return joinedId;
+    }
+
+    public int getCount(Counter counter) {
+        return counters.get(counter).get();
+    }
+
+    public Map<Counter, Integer> getCounts() {
+        Map<Counter, Integer> result = new EnumMap<>(Counter.class);
+        counters.forEach((counter, value) -> result.put(counter, value.get()));
+        return result;
+    }
+
+    public Map<String, Long> getStageTimes() {
+        Map<String, Long> result = new HashMap<>();
+        stageTimes.forEach((stage, value) -> result.put(stage, TimeUnit.NANOSECONDS.toMillis(value.get())));
+        return Collections.unmodifiableMap(result);
+    }
+
+    public Map<String, Integer> getSourceCounts() {
+        Map<String, Integer> result = new HashMap<>();
+        sourceCounts.forEach((source, value) -> result.put(source, value.get()));
+        return Collections.unmodifiableMap(result);
+    }
+
+    public List<String> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    public void increment(Counter counter) {
+        counters.get(counter).incrementAndGet();
+    }
+
+    public void add(Counter counter, int value) {
+        counters.get(counter).addAndGet(value);
+    }
+
+    public void addStageTime(String stage, long millis) {
+        addStageNanos(stage, TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    public void addStageNanos(String stage, long nanos) {
+        stageTimes.computeIfAbsent(stage, key -> new AtomicLong()).addAndGet(nanos);
+    }
+
+    public void incrementSource(String source) {
+        sourceCounts.computeIfAbsent(source, key -> new AtomicInteger()).incrementAndGet();
+    }
+
+    public void addError(String message) {
+        // Only the first errors are kept as a run failing on every album would otherwise hold a message per album
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(message);
+        }
+    }
+
+    public void start() {
+        started = System.currentTimeMillis();
+        state = State.RUNNING;
+    }
+
+    public void succeed() {
+        finished = System.currentTimeMillis();
+        state = State.SUCCEEDED;
+    }
+
+    public void fail(Throwable cause) {
+        error = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getName();
+        finished = System.currentTimeMillis();
+        state = State.FAILED;
+    }
+
+    public void skip(String reason) {
+        error = reason;
+        finished = System.currentTimeMillis();
+        state = State.SKIPPED;
+    }
+
+    public void join(RetrievalReport run) {
+        joinedId = run.getId();
+        run.counters.forEach((counter, value) -> add(counter, value.get()));
+        run.stageTimes.forEach((stage, value) -> addStageNanos(stage, value.get()));
+        run.sourceCounts.forEach((source, value) -> sourceCounts
+                .computeIfAbsent(source, key -> new AtomicInteger())
+                .addAndGet(value.get()));
+        run.errors.forEach(this::addError);
+        error = run.getError();
+        finished = System.currentTimeMillis();
+        state = run.getState();
+    }
+
+    public boolean isDone() {
+        return state == State.SUCCEEDED || state == State.FAILED || state == State.SKIPPED;
+    }
+}
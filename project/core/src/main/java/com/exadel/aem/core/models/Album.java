@@ -17,6 +17,7 @@ import org.apache.sling.models.annotations.injectorspecific.ValueMapValue;
 import org.apache.sling.models.factory.ModelFactory;
 
 import javax.annotation.PostConstruct;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -54,6 +55,12 @@ public class Album {
     private String artistId;
     private Artist artist;
 
+    @ValueMapValue(name = Constants.PN_TRACK_TITLES)
+    private String[] trackTitles;
+
+    @ValueMapValue(name = Constants.PN_TRACK_DURATIONS)
+    private String[] trackDurations;
+
     private List<Track> tracks;
 
     @PostConstruct
@@ -62,14 +69,26 @@ public class Album {
                 .map(id -> resolver.getResource(Constants.ARTISTS_FOLDER + "/" + id + Constants.ARTIST_RESOURCE_PATH))
                 .map(res -> modelFactory.getModelFromWrappedRequest(request, res, Artist.class))
                 .orElse(null);
-        Resource tracksResource = resource.getChild("tracks");
-        if (tracksResource != null && !isBriefDisplay()) {
-            tracks = StreamSupport.stream(tracksResource.getChildren().spliterator(), false)
-                    .map(trackResource -> trackResource.adaptTo(Track.class))
-                    .collect(Collectors.toList());
-        } else {
+        if (isBriefDisplay()) {
             tracks = Collections.emptyList();
+        } else if (trackTitles != null) {
+            tracks = getCompactTracks();
+        } else {
+            tracks = Optional.ofNullable(resource.getChild(Constants.TRACKS_NODE))
+                    .map(tracksResource -> StreamSupport.stream(tracksResource.getChildren().spliterator(), false)
+                            .map(trackResource -> trackResource.adaptTo(Track.class))
+                            .collect(Collectors.toList()))
+                    .orElse(Collections.emptyList());
+        }
+    }
+
+    private List<Track> getCompactTracks() {
+        List<Track> result = new ArrayList<>(trackTitles.length);
+        for (int i = 0; i < trackTitles.length; i++) {
+            String duration = trackDurations != null && i < trackDurations.length ? trackDurations[i] : null;
+            result.add(new Track(trackTitles[i], duration));
         }
+        return result;
     }
 
     public String getTitle() {
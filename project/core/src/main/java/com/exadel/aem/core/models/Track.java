@@ -20,6 +20,14 @@ public class Track {
     @ValueMapValue
     private String duration;
 
+    public Track() {
+    }
+
+    Track(String title, String duration) {
+        this.title = title;
+        this.duration = duration;
+    }
+
     public String getTitle() {
         return title;
     }
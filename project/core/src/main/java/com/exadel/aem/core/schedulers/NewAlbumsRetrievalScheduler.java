@@ -1,8 +1,13 @@
 package com.exadel.aem.core.schedulers;
 
+import com.exadel.aem.core.dto.RetrievalReport;
 import com.exadel.aem.core.services.AlbumRetriever;
+import com.exadel.aem.core.services.AlbumShard;
 import org.apache.sling.commons.scheduler.ScheduleOptions;
 import org.apache.sling.commons.scheduler.Scheduler;
+import org.apache.sling.discovery.InstanceDescription;
+import org.apache.sling.discovery.TopologyEvent;
+import org.apache.sling.discovery.TopologyEventListener;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
@@ -15,9 +20,13 @@ import org.osgi.service.metatype.annotations.ObjectClassDefinition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
 @Component
 @Designate(ocd = NewAlbumsRetrievalScheduler.Config.class)
-public class NewAlbumsRetrievalScheduler implements Runnable {
+public class NewAlbumsRetrievalScheduler implements Runnable, TopologyEventListener {
 
     private static final Logger LOG = LoggerFactory.getLogger(NewAlbumsRetrievalScheduler.class);
     private static final String SCHEDULER_ID = NewAlbumsRetrievalScheduler.class.getName() + "_scheduler";
@@ -28,18 +37,97 @@ public class NewAlbumsRetrievalScheduler implements Runnable {
     @Reference
     private AlbumRetriever albumRetriever;
 
+    private volatile ClusterMode clusterMode;
+
+    // The shard of this instance within its cluster, or null while the topology is changing
+    private volatile AlbumShard shard;
+
+    private volatile boolean leader;
+
+    private boolean adaptive;
+    private long minInterval;
+    private long maxInterval;
+    private double backoffFactor;
+
+    // Guarded by this. Set to false when the job is unscheduled so that a run in progress does not schedule another
+    private boolean scheduled;
+    private long interval;
+
     @Override
     public void run() {
+        RetrievalReport report = retrieve();
+        if (adaptive) {
+            scheduleNext(report);
+        }
+    }
+
+    private RetrievalReport retrieve() {
+        // One-time jobs are scheduled on every instance so that the next run is planned wherever the leader is now
+        if (adaptive && clusterMode == ClusterMode.LEADER_ONLY && !leader) {
+            return null;
+        }
+        AlbumShard currentShard = clusterMode == ClusterMode.SHARDED ? shard : AlbumShard.ALL;
+        if (currentShard == null) {
+            LOG.info("Scheduled retrieval skipped while the cluster topology is changing");
+            return null;
+        }
+        RetrievalReport report = new RetrievalReport();
         try {
-            albumRetriever.retrieveNewAlbums();
+            albumRetriever.retrieveNewAlbums(report, currentShard);
         } catch (Exception e) {
             LOG.error("Scheduled retrieval failed", e);
         }
+        return report;
+    }
+
+    private synchronized void scheduleNext(RetrievalReport report) {
+        if (!scheduled) {
+            return;
+        }
+        // The interval shrinks while runs bring new or changed albums and grows while they bring nothing. Runs that
+        // did not take place leave it as it is
+        if (report != null && report.getState() != RetrievalReport.State.SKIPPED) {
+            int changes = report.getCount(RetrievalReport.Counter.CREATED)
+                    + report.getCount(RetrievalReport.Counter.UPDATED);
+            double nextInterval = changes > 0 ? interval / backoffFactor : interval * backoffFactor;
+            interval = Math.max(minInterval, Math.min(maxInterval, (long) nextInterval));
+            LOG.info("{} albums new or changed, next retrieval in {} ms", changes, interval);
+        }
+        ScheduleOptions scheduleOptions = scheduler.AT(new Date(System.currentTimeMillis() + interval));
+        scheduleOptions.name(SCHEDULER_ID);
+        scheduleOptions.canRunConcurrently(false);
+        scheduler.schedule(this, scheduleOptions);
+    }
+
+    @Override
+    public void handleTopologyEvent(TopologyEvent event) {
+        if (event.getType() == TopologyEvent.Type.TOPOLOGY_CHANGING) {
+            shard = null;
+            leader = false;
+            return;
+        }
+        InstanceDescription localInstance = event.getNewView().getLocalInstance();
+        leader = localInstance.isLeader();
+        // All the instances sort the members the same way, so each of them takes a different shard
+        List<String> members = localInstance
+                .getClusterView()
+                .getInstances()
+                .stream()
+                .map(InstanceDescription::getSlingId)
+                .sorted()
+                .collect(Collectors.toList());
+        shard = AlbumShard.of(members.indexOf(localInstance.getSlingId()), members.size());
+        LOG.info("Album shard of this instance is {}", shard);
     }
 
     @Activate
     @Modified
     private void doActivate(Config config) {
+        clusterMode = config.clusterMode();
+        adaptive = config.adaptive();
+        minInterval = Math.max(1_000, config.minInterval());
+        maxInterval = Math.max(minInterval, config.maxInterval());
+        backoffFactor = Math.max(1, config.backoffFactor());
         if (config.enabled()) {
             addScheduler(config);
         } else {
@@ -52,14 +140,22 @@ public class NewAlbumsRetrievalScheduler implements Runnable {
         removeScheduler();
     }
 
-    private void addScheduler(Config config) {
+    private synchronized void addScheduler(Config config) {
+        scheduled = true;
+        if (adaptive) {
+            interval = minInterval;
+            scheduleNext(null);
+            return;
+        }
         ScheduleOptions scheduleOptions = scheduler.EXPR(config.expression());
         scheduleOptions.name(SCHEDULER_ID);
         scheduleOptions.canRunConcurrently(false);
+        scheduleOptions.onLeaderOnly(config.clusterMode() == ClusterMode.LEADER_ONLY);
         scheduler.schedule(this, scheduleOptions);
     }
 
-    private void removeScheduler() {
+    private synchronized void removeScheduler() {
+        scheduled = false;
         scheduler.unschedule(SCHEDULER_ID);
     }
 
@@ -69,7 +165,47 @@ public class NewAlbumsRetrievalScheduler implements Runnable {
         @AttributeDefinition(name = "Enabled", type = AttributeType.BOOLEAN)
         boolean enabled() default false;
 
-        @AttributeDefinition(name = "Cron Expression")
+        @AttributeDefinition(name = "Cron Expression", description = "Not used in the adaptive mode")
         String expression() default "0 15 5 ? * MON *";
+
+        @AttributeDefinition(
+                name = "Adaptive",
+                description = "Plan every next run after the previous one ends. The interval gets shorter while new or "
+                        + "changed albums are found and longer while none are",
+                type = AttributeType.BOOLEAN)
+        boolean adaptive() default false;
+
+        @AttributeDefinition(
+                name = "Min interval",
+                description = "Shortest time in milliseconds between adaptive runs. Also the time before the first "
+                        + "adaptive run",
+                type = AttributeType.LONG)
+        long minInterval() default 900_000;
+
+        @AttributeDefinition(
+                name = "Max interval",
+                description = "Longest time in milliseconds between adaptive runs",
+                type = AttributeType.LONG)
+        long maxInterval() default 86_400_000;
+
+        @AttributeDefinition(
+                name = "Backoff factor",
+                description = "Number the interval is multiplied by after a run without changes and divided by after "
+                        + "a run with changes",
+                type = AttributeType.DOUBLE)
+        double backoffFactor() default 2;
+
+        @AttributeDefinition(
+                name = "Cluster mode",
+                description = "LEADER_ONLY runs the retrieval on the cluster leader only. SHARDED runs it on every "
+                        + "instance, each one fetching and saving its own share of the albums. ALL_INSTANCES runs the "
+                        + "full retrieval on every instance")
+        ClusterMode clusterMode() default ClusterMode.LEADER_ONLY;
+    }
+
+    public enum ClusterMode {
+        LEADER_ONLY,
+        SHARDED,
+        ALL_INSTANCES
     }
 }
@@ -0,0 +1,10 @@
+package com.exadel.aem.core.services;
+
+import java.util.List;
+
+public interface AlbumLookup {
+
+    List<String> findByArtist(String artistId, int offset, int limit) throws Exception;
+
+    List<String> findByYear(int year, int offset, int limit) throws Exception;
+}
@@ -0,0 +1,34 @@
+package com.exadel.aem.core.services;
+
+import com.exadel.aem.core.dto.AlbumDto;
+import com.exadel.aem.core.dto.RetrievalReport;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+public interface AlbumPublisher extends Supplier<List<AlbumDto>> {
+
+    // Publishes the albums of the given shard only. Errors and timings of the run are added to the report
+    void publish(Consumer<AlbumDto> consumer, AlbumShard shard, RetrievalReport report);
+
+    default void publish(Consumer<AlbumDto> consumer, AlbumShard shard) {
+        publish(consumer, shard, new RetrievalReport());
+    }
+
+    default void publish(Consumer<AlbumDto> consumer) {
+        publish(consumer, AlbumShard.ALL);
+    }
+
+    default String getName() {
+        return getClass().getSimpleName();
+    }
+
+    @Override
+    default List<AlbumDto> get() {
+        List<AlbumDto> result = new ArrayList<>();
+        publish(result::add);
+        return result;
+    }
+}
@@ -0,0 +1,14 @@
+package com.exadel.aem.core.services;
+
+import com.exadel.aem.core.dto.RetrievalReport;
+
+import java.util.List;
+
+public interface AlbumRetrievalQueue {
+
+    RetrievalReport submit();
+
+    RetrievalReport getReport(String id);
+
+    List<RetrievalReport> getReports();
+}
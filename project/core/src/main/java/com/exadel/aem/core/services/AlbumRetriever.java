@@ -1,6 +1,18 @@
 package com.exadel.aem.core.services;
 
+import com.exadel.aem.core.dto.RetrievalReport;
+
 public interface AlbumRetriever {
 
-    void retrieveNewAlbums() throws Exception;
+    void retrieveNewAlbums(RetrievalReport report, AlbumShard shard) throws Exception;
+
+    default void retrieveNewAlbums(RetrievalReport report) throws Exception {
+        retrieveNewAlbums(report, AlbumShard.ALL);
+    }
+
+    default RetrievalReport retrieveNewAlbums() throws Exception {
+        RetrievalReport report = new RetrievalReport();
+        retrieveNewAlbums(report);
+        return report;
+    }
 }
@@ -1,10 +1,20 @@
 package com.exadel.aem.core.services;
 
 import com.exadel.aem.core.dto.AlbumDto;
+import com.exadel.aem.core.dto.RetrievalReport;
 
+import java.util.Iterator;
 import java.util.List;
 
 public interface AlbumSaver {
 
-    void save(List<AlbumDto> albums) throws Exception;
+    void save(Iterator<AlbumDto> albums) throws Exception;
+
+    default void save(Iterator<AlbumDto> albums, RetrievalReport report) throws Exception {
+        save(albums);
+    }
+
+    default void save(List<AlbumDto> albums) throws Exception {
+        save(albums.iterator());
+    }
 }
@@ -0,0 +1,63 @@
+package com.exadel.aem.core.services;
+
+import java.util.Objects;
+
+public final class AlbumShard {
+
+    public static final AlbumShard ALL = new AlbumShard(0, 1);
+
+    private final int index;
+
+    private final int count;
+
+    private AlbumShard(int index, int count) {
+        this.index = index;
+        this.count = count;
+    }
+
+    public static AlbumShard of(int index, int count) {
+        if (count < 1 || index < 0 || index >= count) {
+            throw new IllegalArgumentException("Invalid shard " + index + " of " + count);
+        }
+        return count == 1 ? ALL : new AlbumShard(index, count);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public boolean isAll() {
+        return count == 1;
+    }
+
+    // String hash codes are the same in every JVM, so all the instances agree on which key belongs to which shard
+    public boolean owns(String key) {
+        return count == 1 || (key != null && Math.floorMod(key.hashCode(), count) == index);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof AlbumShard)) {
+            return false;
+        }
+        AlbumShard that = (AlbumShard) other;
+        return index == that.index && count == that.count;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(index, count);
+    }
+
+    @Override
+    public String toString() {
+        return (index + 1) + "/" + count;
+    }
+}
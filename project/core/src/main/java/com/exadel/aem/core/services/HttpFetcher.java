@@ -0,0 +1,24 @@
+package com.exadel.aem.core.services;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+public interface HttpFetcher {
+
+    Response fetch(String url, Map<String, String> headers) throws IOException;
+
+    interface Response extends Closeable {
+
+        String getUrl();
+
+        int getStatus();
+
+        String getHeader(String name);
+
+        String getCharset();
+
+        InputStream getBody() throws IOException;
+    }
+}
@@ -0,0 +1,10 @@
+package com.exadel.aem.core.services;
+
+public interface IngestionMetrics {
+
+    void increment(String name);
+
+    void add(String name, long value);
+
+    void recordTime(String name, long nanos);
+}
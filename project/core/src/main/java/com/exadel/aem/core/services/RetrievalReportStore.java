@@ -0,0 +1,13 @@
+package com.exadel.aem.core.services;
+
+import com.exadel.aem.core.dto.RetrievalReport;
+
+import java.util.List;
+import java.util.Map;
+
+public interface RetrievalReportStore {
+
+    void save(RetrievalReport report) throws Exception;
+
+    List<Map<String, Object>> getRecentRuns(int limit) throws Exception;
+}
@@ -0,0 +1,144 @@
+package com.exadel.aem.core.services.impl;
+
+import com.exadel.aem.core.dto.AlbumDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+class AlbumChannel implements AlbumStream {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AlbumChannel.class);
+
+    private static final long POLL_INTERVAL = 100;
+
+    private final BlockingQueue<AlbumDto> queue;
+
+    private final long deadline;
+
+    private final List<Producer> producers = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger openProducers = new AtomicInteger();
+
+    private volatile boolean aborted;
+
+    private AlbumDto next;
+
+    AlbumChannel(int capacity, long timeout) {
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+    }
+
+    Producer newProducer(String name) {
+        Producer producer = new Producer(name);
+        producers.add(producer);
+        openProducers.incrementAndGet();
+        return producer;
+    }
+
+    void abort() {
+        aborted = true;
+        queue.clear();
+    }
+
+    @Override
+    public boolean hasNext() {
+        take(false, 0);
+        return next != null;
+    }
+
+    @Override
+    public boolean await(long timeout) {
+        return take(true, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout));
+    }
+
+    // Returns false when the wait ran out before an album came or all the producers ended
+    private boolean take(boolean timed, long waitDeadline) {
+        while (next == null) {
+            if (openProducers.get() == 0) {
+                next = queue.poll();
+                return true;
+            }
+            if (System.nanoTime() - deadline > 0) {
+                closeTimedOutProducers();
+                continue;
+            }
+            long wait = TimeUnit.MILLISECONDS.toNanos(POLL_INTERVAL);
+            if (timed) {
+                long remaining = waitDeadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                wait = Math.min(wait, remaining);
+            }
+            try {
+                next = queue.poll(wait, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                abort();
+                return true;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public AlbumDto next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        AlbumDto result = next;
+        next = null;
+        return result;
+    }
+
+    private void closeTimedOutProducers() {
+        for (Producer producer : producers) {
+            if (producer.close()) {
+                LOG.warn("Album source {} did not complete in time and was skipped", producer.name);
+            }
+        }
+    }
+
+    class Producer implements Consumer<AlbumDto> {
+
+        private final String name;
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Producer(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void accept(AlbumDto album) {
+            // A bounded queue makes a fast source wait until the saver catches up
+            try {
+                while (!closed.get() && !aborted) {
+                    if (queue.offer(album, POLL_INTERVAL, TimeUnit.MILLISECONDS)) {
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+            }
+        }
+
+        boolean close() {
+            if (!closed.compareAndSet(false, true)) {
+                return false;
+            }
+            openProducers.decrementAndGet();
+            return true;
+        }
+    }
+}
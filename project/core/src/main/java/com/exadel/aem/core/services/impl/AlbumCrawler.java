@@ -0,0 +1,487 @@
+package com.exadel.aem.core.services.impl;
+
+import com.exadel.aem.core.Constants;
+import com.exadel.aem.core.dto.AlbumDto;
+import com.exadel.aem.core.dto.RetrievalReport;
+import com.exadel.aem.core.services.AlbumShard;
+import com.exadel.aem.core.services.HttpFetcher;
+import com.exadel.aem.core.services.IngestionMetrics;
+import com.exadel.aem.core.services.ResourceResolverHost;
+import com.exadel.aem.core.utils.SlugUtils;
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.HttpStatus;
+import org.jsoup.HttpStatusException;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+// Crawls an album list and the album pages it links to. Shared by the album sources that scrape web pages; each
+// source provides its own parser and settings
+class AlbumCrawler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AlbumCrawler.class);
+
+    private static final String HEADER_ETAG = "ETag";
+    private static final String HEADER_LAST_MODIFIED = "Last-Modified";
+    private static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+    private static final String HEADER_IF_MODIFIED_SINCE = "If-Modified-Since";
+
+    private final Map<String, TokenBucket> rateLimiters = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final AlbumPageParser parser;
+    private final HttpFetcher httpFetcher;
+    private final ResourceResolverHost resourceResolverHost;
+    private final IngestionMetrics metrics;
+    private final String metricPrefix;
+
+    private final String listUrl;
+    private final String pageUrlFormat;
+    private final int maxPages;
+    private final int maxItems;
+    private final boolean stopAtKnownAlbum;
+    private final boolean streamListPages;
+    private final int parallelism;
+    private final ExecutorService executor;
+    private final PageCache<List<String>> listCache;
+    private final PageCache<AlbumDto> albumCache;
+    private final double requestsPerSecond;
+    private final RetryPolicy retryPolicy;
+    private final CircuitBreaker circuitBreaker;
+
+    AlbumCrawler(
+            String name,
+            AlbumPageParser parser,
+            Settings settings,
+            HttpFetcher httpFetcher,
+            ResourceResolverHost resourceResolverHost,
+            IngestionMetrics metrics) {
+        this.name = name;
+        this.parser = parser;
+        this.httpFetcher = httpFetcher;
+        this.resourceResolverHost = resourceResolverHost;
+        this.metrics = metrics;
+        this.metricPrefix = "crawler." + name + ".";
+        this.listUrl = settings.listUrl;
+        this.pageUrlFormat = settings.pageUrlFormat;
+        this.maxPages = Math.max(1, settings.maxPages);
+        this.maxItems = Math.max(1, settings.maxItems);
+        this.stopAtKnownAlbum = settings.stopAtKnownAlbum;
+        this.streamListPages = settings.streamListPages;
+        this.parallelism = Math.max(1, settings.parallelism);
+        this.listCache = new PageCache<>(settings.cacheSize);
+        this.albumCache = new PageCache<>(settings.cacheSize);
+        this.requestsPerSecond = settings.requestsPerSecond;
+        this.retryPolicy = new RetryPolicy(settings.maxRetries, settings.retryDelay, settings.maxRetryDelay);
+        this.circuitBreaker = new CircuitBreaker(settings.failureThreshold, settings.circuitOpenTime);
+        if (parallelism > 1) {
+            AtomicInteger threadCounter = new AtomicInteger();
+            String threadPrefix = StringUtils.defaultIfBlank(SlugUtils.toSlug(name), "album-crawler") + "-";
+            this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+                Thread thread = new Thread(runnable, threadPrefix + threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.executor = null;
+        }
+    }
+
+    void publish(Consumer<AlbumDto> consumer, AlbumShard shard, RetrievalReport report) {
+        CircuitBreaker.Permit permit = circuitBreaker.allowRequest();
+        if (permit == null) {
+            LOG.warn("Skipping {} after repeated failures", name);
+            return;
+        }
+        try {
+            Set<String> knownSlugs = stopAtKnownAlbum ? getKnownAlbumSlugs() : Collections.emptySet();
+            Set<String> visitedLinks = new HashSet<>();
+            for (int page = 1; page <= maxPages && visitedLinks.size() < maxItems; page++) {
+                String pageUrl = getPageUrl(page);
+                if (pageUrl == null) {
+                    break;
+                }
+                List<String> links;
+                try {
+                    links = getAlbumLinks(pageUrl, visitedLinks, report);
+                } catch (IOException e) {
+                    report.addError("Could not retrieve album list at " + pageUrl + ": " + e.getMessage());
+                    LOG.error("Could not retrieve album list at {}", pageUrl, e);
+                    break;
+                }
+                if (links.isEmpty()) {
+                    break;
+                }
+                // Every instance walks the same links and fetches only the albums of its own shard. The slug of an album
+                // is not known before its page is parsed, so the link is the shard key. An album linked by more than
+                // one URL or source may then be saved on two instances, which the saver settles as an update
+                List<String> ownLinks = links.stream().filter(shard::owns).collect(Collectors.toList());
+                if (publishAlbums(ownLinks, knownSlugs, consumer, report)) {
+                    break;
+                }
+            }
+        } finally {
+            // The trial request may end without a result, e.g. when reading the stored albums fails
+            circuitBreaker.release(permit);
+        }
+    }
+
+    private String getPageUrl(int page) {
+        if (page == 1) {
+            return listUrl;
+        }
+        return StringUtils.isNotBlank(pageUrlFormat) ? String.format(pageUrlFormat, page) : null;
+    }
+
+    private List<String> getAlbumLinks(String pageUrl, Set<String> visitedLinks, RetrievalReport report)
+            throws IOException {
+        List<String> result = new ArrayList<>();
+        List<String> links = streamListPages
+                ? fetch(pageUrl, listCache, response -> scanAlbumLinks(response, visitedLinks), report)
+                : fetch(
+                        pageUrl,
+                        listCache,
+                        response -> PageContent.complete(parser.parseAlbumLinks(parse(response))),
+                        report);
+        for (String link : links) {
+            if (visitedLinks.size() >= maxItems) {
+                break;
+            }
+            if (visitedLinks.add(link)) {
+                result.add(link);
+            }
+        }
+        return result;
+    }
+
+    private PageContent<List<String>> scanAlbumLinks(HttpFetcher.Response response, Set<String> visitedLinks)
+            throws IOException {
+        // Reading stops as soon as the page has yielded enough new links to fill the budget
+        int budget = maxItems - visitedLinks.size();
+        List<String> links = new ArrayList<>();
+        Set<String> newLinks = new HashSet<>();
+        boolean complete = parser.scanAlbumLinks(getReader(response), link -> {
+            links.add(link);
+            if (!visitedLinks.contains(link)) {
+                newLinks.add(link);
+            }
+            return newLinks.size() < budget;
+        });
+        return complete ? PageContent.complete(links) : PageContent.partial(links);
+    }
+
+    private boolean publishAlbums(
+            List<String> links,
+            Set<String> knownSlugs,
+            Consumer<AlbumDto> consumer,
+            RetrievalReport report) {
+        // When looking for a known album, links are processed in small chunks not to fetch much past the stop point
+        int chunkSize = knownSlugs.isEmpty() ? links.size() : parallelism;
+        for (int start = 0; start < links.size(); start += chunkSize) {
+            List<String> chunk = links.subList(start, Math.min(links.size(), start + chunkSize));
+            for (Supplier<AlbumDto> pendingAlbum : getAlbums(chunk, report)) {
+                AlbumDto album = pendingAlbum.get();
+                if (album == null) {
+                    continue;
+                }
+                if (knownSlugs.contains(album.getSlug())) {
+                    LOG.info("Reached already stored album {}, crawling stopped", album.getSlug());
+                    return true;
+                }
+                consumer.accept(album);
+            }
+        }
+        return false;
+    }
+
+    private Set<String> getKnownAlbumSlugs() {
+        Set<String> result = new HashSet<>();
+        try {
+            resourceResolverHost.execute(resolver -> Optional
+                    .ofNullable(resolver.getResource(Constants.ALBUMS_FOLDER))
+                    .ifPresent(folder -> result.addAll(SlugIndex.getChildNames(folder))));
+        } catch (Exception e) {
+            LOG.error("Could not read stored albums at {}", Constants.ALBUMS_FOLDER, e);
+        }
+        return result;
+    }
+
+    private List<Supplier<AlbumDto>> getAlbums(List<String> links, RetrievalReport report) {
+        if (executor == null) {
+            return links
+                    .stream()
+                    .map(link -> (Supplier<AlbumDto>) () -> getAlbum(link, report))
+                    .collect(Collectors.toList());
+        }
+        // Futures are joined in the order of links so that albums are published in the order of the album list
+        // as soon as each of them and the preceding ones are ready
+        return links
+                .stream()
+                .map(link -> CompletableFuture.supplyAsync(() -> getAlbum(link, report), executor))
+                .map(future -> (Supplier<AlbumDto>) future::join)
+                .collect(Collectors.toList());
+    }
+
+    private AlbumDto getAlbum(String link, RetrievalReport report) {
+        CircuitBreaker.Permit permit = circuitBreaker.allowRequest();
+        if (permit == null) {
+            LOG.debug("Skipping album details at {} after repeated failures", link);
+            return null;
+        }
+        try {
+            return fetch(
+                    link,
+                    albumCache,
+                    response -> PageContent.complete(parser.parseAlbum(parse(response))),
+                    report);
+        } catch (IOException e) {
+            report.addError("Could not retrieve album details at " + link + ": " + e.getMessage());
+            LOG.error("Could not retrieve album details at {}", link, e);
+            return null;
+        } finally {
+            circuitBreaker.release(permit);
+        }
+    }
+
+    private <T> T fetch(String url, PageCache<T> cache, PageReader<T> reader, RetrievalReport report)
+            throws IOException {
+        // A result that is not counted leaves a trial to be released by the caller holding it
+        try {
+            T result = retryPolicy.execute(() -> fetchOnce(url, cache, reader, report));
+            circuitBreaker.recordSuccess();
+            return result;
+        } catch (IOException e) {
+            if (RetryPolicy.isTransient(e)) {
+                circuitBreaker.recordFailure();
+            }
+            throw e;
+        }
+    }
+
+    private <T> T fetchOnce(String url, PageCache<T> cache, PageReader<T> reader, RetrievalReport report)
+            throws IOException {
+        waitForRateLimit(url);
+        PageCache.Entry<T> cachedEntry = cache.get(url);
+        Map<String, String> headers = new HashMap<>();
+        if (cachedEntry != null && cachedEntry.getETag() != null) {
+            headers.put(HEADER_IF_NONE_MATCH, cachedEntry.getETag());
+        }
+        if (cachedEntry != null && cachedEntry.getLastModified() != null) {
+            headers.put(HEADER_IF_MODIFIED_SINCE, cachedEntry.getLastModified());
+        }
+
+        long fetchStart = System.nanoTime();
+        try (MeteredResponse response = fetchMetered(url, headers)) {
+            // Fetch time lasts until the response headers come. The body is downloaded while it is being parsed, so
+            // parse time includes reading it
+            long fetchTime = System.nanoTime() - fetchStart;
+            metrics.recordTime(metricPrefix + "fetch", fetchTime);
+            report.addStageNanos(RetrievalReport.STAGE_FETCH, fetchTime);
+            metrics.increment(metricPrefix + "status." + response.getStatus());
+            if (response.getStatus() == HttpStatus.SC_NOT_MODIFIED && cachedEntry != null) {
+                return cachedEntry.getContent();
+            }
+            if (response.getStatus() < HttpStatus.SC_OK || response.getStatus() >= HttpStatus.SC_MULTIPLE_CHOICES) {
+                throw new HttpStatusException("HTTP error fetching URL", response.getStatus(), url);
+            }
+
+            long parseStart = System.nanoTime();
+            PageContent<T> content;
+            try {
+                content = reader.read(response);
+            } finally {
+                long parseTime = System.nanoTime() - parseStart;
+                metrics.recordTime(metricPrefix + "parse", parseTime);
+                report.addStageNanos(RetrievalReport.STAGE_PARSE, parseTime);
+                metrics.add(metricPrefix + "bytes", response.getByteCount());
+            }
+            String eTag = response.getHeader(HEADER_ETAG);
+            String lastModified = response.getHeader(HEADER_LAST_MODIFIED);
+            // A page read only partially is not cached as it may lack the content needed by a later request
+            if ((eTag != null || lastModified != null) && content.isComplete()) {
+                cache.put(url, new PageCache.Entry<>(eTag, lastModified, content.getValue()));
+            }
+            return content.getValue();
+        }
+    }
+
+    private MeteredResponse fetchMetered(String url, Map<String, String> headers) throws IOException {
+        try {
+            return new MeteredResponse(httpFetcher.fetch(url, headers));
+        } catch (IOException e) {
+            metrics.increment(metricPrefix + "errors");
+            throw e;
+        }
+    }
+
+    private static Document parse(HttpFetcher.Response response) throws IOException {
+        return Jsoup.parse(response.getBody(), response.getCharset(), response.getUrl());
+    }
+
+    private static Reader getReader(HttpFetcher.Response response) throws IOException {
+        Charset charset = StandardCharsets.UTF_8;
+        if (response.getCharset() != null) {
+            try {
+                charset = Charset.forName(response.getCharset());
+            } catch (IllegalArgumentException e) {
+                LOG.debug("Unsupported charset {} at {}, reading as UTF-8", response.getCharset(), response.getUrl());
+            }
+        }
+        return new InputStreamReader(response.getBody(), charset);
+    }
+
+    private void waitForRateLimit(String url) throws IOException {
+        if (requestsPerSecond <= 0) {
+            return;
+        }
+        String host;
+        try {
+            host = StringUtils.defaultString(URI.create(url).getHost()).toLowerCase();
+        } catch (IllegalArgumentException e) {
+            throw new MalformedURLException(e.getMessage());
+        }
+        TokenBucket rateLimiter = rateLimiters.computeIfAbsent(
+                host,
+                key -> new TokenBucket(requestsPerSecond, Math.max(1, Math.ceil(requestsPerSecond))));
+        try {
+            rateLimiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the rate limit at " + host);
+        }
+    }
+
+    void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    // Counts the bytes of the response body read by a parser
+    private static class MeteredResponse implements HttpFetcher.Response {
+
+        private final HttpFetcher.Response response;
+
+        private CountingInputStream body;
+
+        MeteredResponse(HttpFetcher.Response response) {
+            this.response = response;
+        }
+
+        @Override
+        public String getUrl() {
+            return response.getUrl();
+        }
+
+        @Override
+        public int getStatus() {
+            return response.getStatus();
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return response.getHeader(name);
+        }
+
+        @Override
+        public String getCharset() {
+            return response.getCharset();
+        }
+
+        @Override
+        public synchronized InputStream getBody() throws IOException {
+            if (body == null) {
+                body = new CountingInputStream(response.getBody());
+            }
+            return body;
+        }
+
+        synchronized long getByteCount() {
+            return body != null ? body.getByteCount() : 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            response.close();
+        }
+    }
+
+    private interface PageReader<T> {
+
+        PageContent<T> read(HttpFetcher.Response response) throws IOException;
+    }
+
+    private static class PageContent<T> {
+
+        private final T value;
+
+        private final boolean complete;
+
+        private PageContent(T value, boolean complete) {
+            this.value = value;
+            this.complete = complete;
+        }
+
+        T getValue() {
+            return value;
+        }
+
+        boolean isComplete() {
+            return complete;
+        }
+
+        static <T> PageContent<T> complete(T value) {
+            return new PageContent<>(value, true);
+        }
+
+        static <T> PageContent<T> partial(T value) {
+            return new PageContent<>(value, false);
+        }
+    }
+
+    static class Settings {
+
+        String listUrl;
+        String pageUrlFormat;
+        int maxPages = 1;
+        int maxItems = 10;
+        boolean stopAtKnownAlbum;
+        boolean streamListPages = true;
+        int parallelism = 1;
+        int cacheSize;
+        double requestsPerSecond;
+        int maxRetries;
+        long retryDelay;
+        long maxRetryDelay;
+        int failureThreshold;
+        long circuitOpenTime;
+    }
+}
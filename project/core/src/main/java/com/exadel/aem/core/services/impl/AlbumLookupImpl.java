@@ -0,0 +1,82 @@
+package com.exadel.aem.core.services.impl;
+
+import com.exadel.aem.core.Constants;
+import com.exadel.aem.core.services.AlbumLookup;
+import com.exadel.aem.core.services.ResourceResolverHost;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+
+import javax.jcr.NodeIterator;
+import javax.jcr.Session;
+import javax.jcr.Value;
+import javax.jcr.ValueFactory;
+import javax.jcr.query.Query;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+// Both queries are served by the sampleProjectAlbums Lucene index shipped in ui.apps. The index has to cover every
+// property a query filters or sorts on, and its paths have to cover the albums folder, otherwise Oak falls back to
+// traversal
+@Component(service = AlbumLookup.class)
+public class AlbumLookupImpl implements AlbumLookup {
+
+    private static final String VARIABLE = "value";
+
+    private static final String QUERY_TEMPLATE = "SELECT * FROM [nt:unstructured] AS album"
+            + " WHERE ISDESCENDANTNODE(album, '" + Constants.ALBUMS_FOLDER + "')"
+            + " AND album.[sling:resourceType] = '" + Constants.ALBUM_RESOURCE_TYPE + "'"
+            + " AND album.[%s] = $" + VARIABLE
+            + " ORDER BY %s";
+
+    private static final String QUERY_BY_ARTIST = String.format(
+            QUERY_TEMPLATE,
+            Constants.PN_ARTIST_ID,
+            "album.[" + Constants.PN_YEAR + "] DESC, album.[jcr:title]");
+
+    private static final String QUERY_BY_YEAR = String.format(
+            QUERY_TEMPLATE,
+            Constants.PN_YEAR,
+            "album.[jcr:title]");
+
+    @Reference
+    private ResourceResolverHost resourceResolverHost;
+
+    @Override
+    public List<String> findByArtist(String artistId, int offset, int limit) throws Exception {
+        return find(QUERY_BY_ARTIST, valueFactory -> valueFactory.createValue(artistId), offset, limit);
+    }
+
+    @Override
+    public List<String> findByYear(int year, int offset, int limit) throws Exception {
+        return find(QUERY_BY_YEAR, valueFactory -> valueFactory.createValue(year), offset, limit);
+    }
+
+    private List<String> find(
+            String statement,
+            Function<ValueFactory, Value> valueSupplier,
+            int offset,
+            int limit) throws Exception {
+
+        List<String> result = new ArrayList<>();
+        if (limit <= 0) {
+            return result;
+        }
+        resourceResolverHost.execute(resolver -> {
+            Session session = resolver.adaptTo(Session.class);
+            if (session == null) {
+                return;
+            }
+            Query query = session.getWorkspace().getQueryManager().createQuery(statement, Query.JCR_SQL2);
+            query.bindValue(VARIABLE, valueSupplier.apply(session.getValueFactory()));
+            // Paging is left to the query engine so that only the requested page is read from the index
+            query.setOffset(Math.max(0, offset));
+            query.setLimit(limit);
+            NodeIterator nodes = query.execute().getNodes();
+            while (nodes.hasNext()) {
+                result.add(nodes.nextNode().getPath());
+            }
+        });
+        return result;
+    }
+}
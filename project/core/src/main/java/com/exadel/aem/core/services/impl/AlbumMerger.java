@@ -0,0 +1,106 @@
+package com.exadel.aem.core.services.impl;
+
+import com.exadel.aem.core.dto.AlbumDto;
+import com.exadel.aem.core.dto.RetrievalReport;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+// Keeps the richest copy of every album coming from the sources and drops the others. Albums are keyed by their slug,
+// which is also the name of the album page. A copy can only be settled once no source may bring another one, so albums
+// are passed on after all the sources end, in the order their slugs first came. Only the best copy per slug is held
+// until then
+class AlbumMerger implements AlbumStream {
+
+    private final Iterator<AlbumDto> source;
+
+    private final RetrievalReport report;
+
+    private final Map<String, AlbumDto> bestAlbums = new LinkedHashMap<>();
+
+    private Iterator<AlbumDto> settledAlbums;
+
+    private AlbumDto next;
+
+    AlbumMerger(Iterator<AlbumDto> source, RetrievalReport report) {
+        this.source = source;
+        this.report = report;
+    }
+
+    @Override
+    public boolean hasNext() {
+        settle(false, 0);
+        return next != null;
+    }
+
+    @Override
+    public boolean await(long timeout) {
+        return settle(true, System.currentTimeMillis() + timeout);
+    }
+
+    // Returns false when the wait ran out before the next album could be passed on
+    private boolean settle(boolean timed, long waitDeadline) {
+        while (next == null && settledAlbums == null) {
+            if (timed && source instanceof AlbumStream) {
+                long remaining = waitDeadline - System.currentTimeMillis();
+                if (remaining <= 0 || !((AlbumStream) source).await(remaining)) {
+                    return false;
+                }
+            }
+            if (!source.hasNext()) {
+                break;
+            }
+            AlbumDto album = source.next();
+            if (album == null) {
+                continue;
+            }
+            if (!album.isValid()) {
+                // Left to the saver, which skips invalid albums
+                next = album;
+                break;
+            }
+            AlbumDto bestAlbum = bestAlbums.get(album.getSlug());
+            if (bestAlbum != null) {
+                report.increment(RetrievalReport.Counter.DUPLICATE);
+                if (getRichness(album) <= getRichness(bestAlbum)) {
+                    continue;
+                }
+            }
+            bestAlbums.put(album.getSlug(), album);
+        }
+        if (next == null) {
+            if (settledAlbums == null) {
+                settledAlbums = bestAlbums.values().iterator();
+            }
+            if (settledAlbums.hasNext()) {
+                next = settledAlbums.next();
+                // Albums passed on are not held any longer
+                settledAlbums.remove();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public AlbumDto next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        AlbumDto result = next;
+        next = null;
+        return result;
+    }
+
+    // Albums with more tracks are richer. Among the ones with as many tracks, having an image matters most, then having
+    // a year, then having an artist description
+    private static int getRichness(AlbumDto album) {
+        int tracks = album.getTracks() != null ? album.getTracks().size() : 0;
+        return tracks << 3
+                | (StringUtils.isNotEmpty(album.getImage()) ? 4 : 0)
+                | (album.getYear() > 0 ? 2 : 0)
+                | (StringUtils.isNotEmpty(album.getArtist().getDescription()) ? 1 : 0);
+    }
+}
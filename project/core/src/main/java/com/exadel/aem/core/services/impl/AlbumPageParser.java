@@ -0,0 +1,43 @@
+package com.exadel.aem.core.services.impl;
+
+import com.exadel.aem.core.dto.AlbumDto;
+import org.jsoup.nodes.Document;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+public abstract class AlbumPageParser {
+
+    private final Pattern linkPattern;
+
+    protected AlbumPageParser(Pattern linkPattern) {
+        this.linkPattern = linkPattern;
+    }
+
+    public List<String> parseAlbumLinks(Document document) {
+        return document
+                .getElementsByAttributeValueMatching("href", linkPattern)
+                .stream()
+                .map(element -> element.attr("href"))
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    // Passes the album links to the consumer while reading the page until the consumer returns false. Returns true
+    // if the whole page was read
+    public boolean scanAlbumLinks(Reader reader, Predicate<String> consumer) throws IOException {
+        HtmlLinkScanner scanner = new HtmlLinkScanner(reader);
+        String href;
+        while ((href = scanner.nextHref()) != null) {
+            if (linkPattern.matcher(href).find() && !consumer.test(href)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public abstract AlbumDto parseAlbum(Document document);
+}
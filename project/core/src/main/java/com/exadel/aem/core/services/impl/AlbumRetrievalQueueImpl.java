@@ -0,0 +1,115 @@
+package com.exadel.aem.core.services.impl;
+
+import com.exadel.aem.core.dto.RetrievalReport;
+import com.exadel.aem.core.services.AlbumRetrievalQueue;
+import com.exadel.aem.core.services.AlbumRetriever;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.AttributeType;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+@Component(service = AlbumRetrievalQueue.class)
+@Designate(ocd = AlbumRetrievalQueueImpl.Config.class)
+public class AlbumRetrievalQueueImpl implements AlbumRetrievalQueue {
+    private static final Logger LOG = LoggerFactory.getLogger(AlbumRetrievalQueueImpl.class);
+
+    @Reference
+    private AlbumRetriever albumRetriever;
+
+    private final Map<String, RetrievalReport> reports = new LinkedHashMap<>();
+
+    private int historySize;
+    private ExecutorService executor;
+
+    @Override
+    public synchronized RetrievalReport submit() {
+        // A run that has not started yet will pick up the same albums, so it is shared instead of queueing another one
+        for (RetrievalReport report : reports.values()) {
+            if (report.getState() == RetrievalReport.State.QUEUED) {
+                return report;
+            }
+        }
+        RetrievalReport report = new RetrievalReport();
+        try {
+            executor.execute(() -> run(report));
+        } catch (RejectedExecutionException e) {
+            report.fail(e);
+        }
+        reports.put(report.getId(), report);
+        trim();
+        return report;
+    }
+
+    @Override
+    public synchronized RetrievalReport getReport(String id) {
+        return reports.get(id);
+    }
+
+    @Override
+    public synchronized List<RetrievalReport> getReports() {
+        List<RetrievalReport> result = new ArrayList<>(reports.values());
+        Collections.reverse(result);
+        return result;
+    }
+
+    private void run(RetrievalReport report) {
+        try {
+            albumRetriever.retrieveNewAlbums(report);
+        } catch (Exception e) {
+            LOG.error("Album retrieval {} failed", report.getId(), e);
+        }
+    }
+
+    private void trim() {
+        // Only finished runs are dropped so that a queued or running one can always be looked up
+        int excess = reports.size() - historySize;
+        Iterator<RetrievalReport> iterator = reports.values().iterator();
+        while (excess > 0 && iterator.hasNext()) {
+            if (iterator.next().isDone()) {
+                iterator.remove();
+                excess--;
+            }
+        }
+    }
+
+    @Activate
+    private void doActivate(Config config) {
+        historySize = Math.max(1, config.historySize());
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "album-retrieval-queue");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Deactivate
+    private void doDeactivate() {
+        executor.shutdownNow();
+    }
+
+    @ObjectClassDefinition(name = "Sample AEM Project - Album Retrieval Queue Configuration")
+    public @interface Config {
+
+        @AttributeDefinition(
+                name = "History size",
+                description = "Number of finished retrieval runs whose reports are kept",
+                type = AttributeType.INTEGER)
+        int historySize() default 20;
+    }
+}
@@ -1,22 +1,42 @@
 package com.exadel.aem.core.services.impl;
 
 import com.exadel.aem.core.dto.AlbumDto;
+import com.exadel.aem.core.dto.RetrievalReport;
+import com.exadel.aem.core.services.AlbumPublisher;
 import com.exadel.aem.core.services.AlbumRetriever;
 import com.exadel.aem.core.services.AlbumSaver;
+import com.exadel.aem.core.services.AlbumShard;
+import com.exadel.aem.core.services.IngestionMetrics;
+import com.exadel.aem.core.services.ResourceResolverHost;
+import com.exadel.aem.core.services.RetrievalReportStore;
+import org.apache.sling.settings.SlingSettingsService;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicyOption;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.AttributeType;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
 
 @Component(immediate = true)
+@Designate(ocd = AlbumRetrieverImpl.Config.class)
 public class AlbumRetrieverImpl implements AlbumRetriever {
     private static final Logger LOG = LoggerFactory.getLogger(AlbumRetrieverImpl.class);
 
@@ -26,25 +46,249 @@ public class AlbumRetrieverImpl implements AlbumRetriever {
     @Reference
     private AlbumSaver albumSaver;
 
+    @Reference
+    private ResourceResolverHost resourceResolverHost;
+
+    @Reference
+    private SlingSettingsService slingSettingsService;
+
+    @Reference
+    private IngestionMetrics metrics;
+
+    @Reference
+    private RetrievalReportStore reportStore;
+
+    private CompletableFuture<RetrievalReport> inFlight;
+    private AlbumShard inFlightShard;
+
+    private RetrievalLease lease;
+    private long supplierTimeout;
+    private int bufferSize;
+    private ExecutorService executor;
+
     @Override
-    public void retrieveNewAlbums() throws Exception {
+    public void retrieveNewAlbums(RetrievalReport report, AlbumShard shard) throws Exception {
+        // Only one retrieval runs at a time in this instance. Callers that come while it runs over the same shard wait
+        // for it and get its results instead of starting another run over the same albums. Callers asking for another
+        // shard wait for it to end and then run their own
+        CompletableFuture<RetrievalReport> flight;
+        while (true) {
+            CompletableFuture<RetrievalReport> other;
+            synchronized (this) {
+                if (inFlight == null) {
+                    inFlight = new CompletableFuture<>();
+                    inFlightShard = shard;
+                    flight = inFlight;
+                    break;
+                }
+                if (inFlightShard.equals(shard)) {
+                    other = inFlight;
+                } else {
+                    other = null;
+                    wait();
+                }
+            }
+            if (other != null) {
+                join(other, report);
+                return;
+            }
+        }
+        try {
+            runExclusively(report, shard);
+            flight.complete(report);
+        } catch (Exception e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            if (!flight.isDone()) {
+                flight.completeExceptionally(new IllegalStateException("Album retrieval was aborted"));
+            }
+            saveReport(report);
+            synchronized (this) {
+                inFlight = null;
+                inFlightShard = null;
+                notifyAll();
+            }
+        }
+    }
+
+    private void saveReport(RetrievalReport report) {
+        try {
+            reportStore.save(report);
+        } catch (Exception e) {
+            LOG.warn("Could not save the report of album retrieval {}", report.getId(), e);
+        }
+    }
+
+    private static void join(CompletableFuture<RetrievalReport> flight, RetrievalReport report) throws Exception {
+        report.start();
+        try {
+            report.join(flight.get());
+        } catch (ExecutionException e) {
+            report.fail(e.getCause());
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    private void runExclusively(RetrievalReport report, AlbumShard shard) throws Exception {
+        // Sharded runs are meant to go on all the instances at once, so they do not take the cluster-wide lease
+        RetrievalLease currentLease = shard.isAll() ? lease : null;
+        if (currentLease == null) {
+            run(report, shard);
+            return;
+        }
+        if (!currentLease.acquire()) {
+            report.skip("Album retrieval is running on another instance");
+            return;
+        }
+        try {
+            run(report, shard);
+        } finally {
+            currentLease.release();
+        }
+    }
+
+    private void run(RetrievalReport report, AlbumShard shard) throws Exception {
+        report.start();
+        long start = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        try {
+            retrieve(report, shard);
+            report.succeed();
+        } catch (Exception e) {
+            report.fail(e);
+            throw e;
+        } finally {
+            report.addStageTime(RetrievalReport.STAGE_TOTAL, System.currentTimeMillis() - start);
+            recordMetrics(report, System.nanoTime() - startNanos);
+        }
+    }
+
+    private void recordMetrics(RetrievalReport report, long nanos) {
+        metrics.recordTime("retrieval", nanos);
+        metrics.increment("retrieval." + report.getState().name().toLowerCase());
+        report.getCounts().forEach((counter, value) -> metrics.add("albums." + counter.name().toLowerCase(), value));
+    }
+
+    private void retrieve(RetrievalReport report, AlbumShard shard) throws Exception {
         if (suppliers == null || suppliers.isEmpty()) {
             return;
         }
-        List<AlbumDto> albums = suppliers
-                .stream()
-                .flatMap(supplier -> supplier.get().stream())
-                .collect(Collectors.toList());
-        albumSaver.save(albums);
+        AlbumChannel channel = new AlbumChannel(bufferSize, supplierTimeout);
+        List<Future<?>> futures = new ArrayList<>();
+        for (Supplier<List<AlbumDto>> supplier : new ArrayList<>(suppliers)) {
+            AlbumChannel.Producer producer = channel.newProducer(getName(supplier));
+            futures.add(executor.submit(() -> publish(supplier, producer, shard, report)));
+        }
+        AlbumMerger merger = new AlbumMerger(channel, report);
+        long saveStart = System.currentTimeMillis();
+        try {
+            albumSaver.save(merger, report);
+        } finally {
+            report.addStageTime(RetrievalReport.STAGE_SAVE, System.currentTimeMillis() - saveStart);
+            channel.abort();
+            futures.forEach(future -> future.cancel(true));
+        }
+        if (report.getCount(RetrievalReport.Counter.DUPLICATE) > 0) {
+            LOG.info(
+                    "Skipped {} albums retrieved from more than one source",
+                    report.getCount(RetrievalReport.Counter.DUPLICATE));
+        }
+    }
+
+    private void publish(
+            Supplier<List<AlbumDto>> supplier,
+            AlbumChannel.Producer producer,
+            AlbumShard shard,
+            RetrievalReport report) {
+        String name = getName(supplier);
+        String metricPrefix = "source." + name;
+        long start = System.nanoTime();
+        Consumer<AlbumDto> consumer = album -> {
+            report.increment(RetrievalReport.Counter.RETRIEVED);
+            report.incrementSource(name);
+            metrics.increment(metricPrefix + ".albums");
+            producer.accept(album);
+        };
+        try {
+            if (supplier instanceof AlbumPublisher) {
+                ((AlbumPublisher) supplier).publish(consumer, shard, report);
+            } else {
+                Optional.ofNullable(supplier.get()).ifPresent(albums -> albums
+                        .stream()
+                        .filter(album -> shard.owns(album.getSlug()))
+                        .forEach(consumer));
+            }
+        } catch (RuntimeException e) {
+            metrics.increment(metricPrefix + ".failures");
+            report.addError("Album source " + name + " failed: " + e.getMessage());
+            LOG.error("Album source {} failed", name, e);
+        } finally {
+            producer.close();
+            long duration = System.nanoTime() - start;
+            metrics.recordTime(metricPrefix, duration);
+            report.addStageNanos(RetrievalReport.STAGE_SOURCE_PREFIX + name, duration);
+        }
+    }
+
+    private static String getName(Supplier<List<AlbumDto>> supplier) {
+        return supplier instanceof AlbumPublisher
+                ? ((AlbumPublisher) supplier).getName()
+                : supplier.getClass().getSimpleName();
     }
 
     @Activate
-    private void doActivate() {
+    private void doActivate(Config config) {
+        supplierTimeout = config.supplierTimeout();
+        bufferSize = config.bufferSize();
+        lease = config.clusterLease()
+                ? new RetrievalLease(resourceResolverHost, slingSettingsService.getSlingId(), config.leaseDuration())
+                : null;
+        AtomicInteger threadCounter = new AtomicInteger();
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "album-retriever-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
         LOG.info("Service started");
     }
 
     @Deactivate
     private void onDeactivate() {
+        executor.shutdownNow();
         LOG.info("Service stopped");
     }
+
+    @ObjectClassDefinition(name = "Sample AEM Project - Album Retriever Configuration")
+    public @interface Config {
+
+        @AttributeDefinition(
+                name = "Album source timeout",
+                description = "Time in milliseconds given to every album source. Albums of a source that did not "
+                        + "complete in time are not saved",
+                type = AttributeType.LONG)
+        long supplierTimeout() default 300_000;
+
+        @AttributeDefinition(
+                name = "Album buffer size",
+                description = "Number of retrieved albums waiting to be saved. When the buffer is full, album sources "
+                        + "wait until the saver catches up",
+                type = AttributeType.INTEGER)
+        int bufferSize() default 50;
+
+        @AttributeDefinition(
+                name = "Cluster-wide lease",
+                description = "Take a lease in the repository before retrieving albums so that only one instance of "
+                        + "the cluster runs a retrieval at a time. Runs triggered on other instances are skipped. "
+                        + "Sharded runs do not take the lease",
+                type = AttributeType.BOOLEAN)
+        boolean clusterLease() default false;
+
+        @AttributeDefinition(
+                name = "Lease duration",
+                description = "Time in milliseconds after which a lease left by a crashed instance is considered free. "
+                        + "Should be longer than a retrieval run",
+                type = AttributeType.LONG)
+        long leaseDuration() default 3_600_000;
+    }
 }
@@ -7,8 +7,10 @@ import com.day.cq.wcm.api.WCMException;
 import com.exadel.aem.core.Constants;
 import com.exadel.aem.core.dto.AlbumDto;
 import com.exadel.aem.core.dto.ArtistDto;
+import com.exadel.aem.core.dto.RetrievalReport;
 import com.exadel.aem.core.dto.TrackDto;
 import com.exadel.aem.core.services.AlbumSaver;
+import com.exadel.aem.core.services.IngestionMetrics;
 import com.exadel.aem.core.services.ResourceResolverHost;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.sling.api.resource.ModifiableValueMap;
@@ -16,32 +18,171 @@ import org.apache.sling.api.resource.PersistenceException;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
 import org.apache.sling.jcr.resource.api.JcrResourceConstants;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.AttributeType;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.jcr.PathNotFoundException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Component(service = AlbumSaver.class)
+@Designate(ocd = AlbumSaverImpl.Config.class)
 public class AlbumSaverImpl implements AlbumSaver {
 
+    private static final Logger LOG = LoggerFactory.getLogger(AlbumSaverImpl.class);
+
     private static final String ALBUM_PAGE_TEMPLATE = "/conf/sample-project/settings/wcm/templates/page-content";
-    private static final String RESOURCE_TYPE_ALBUM = "sample-project/components/album";
     private static final String RESOURCE_TYPE_ARTIST = "sample-project/components/artist";
 
+    private static final String PN_FINGERPRINT = "fingerprint";
+    private static final String PN_IMAGE_PATH = "imagePath";
+
+    // Properties of an album resource written by the saver. All of them are cleared before an update, so that a value
+    // a source no longer provides does not outlive it
+    private static final List<String> ALBUM_PROPERTIES = Arrays.asList(
+            JcrConstants.JCR_TITLE,
+            PN_FINGERPRINT,
+            Constants.PN_ARTIST_ID,
+            Constants.PN_YEAR,
+            PN_IMAGE_PATH,
+            Constants.PN_TRACK_TITLES,
+            Constants.PN_TRACK_DURATIONS);
+
+    private static final long MIN_RETRY_DELAY = 10;
+    private static final long MAX_RETRY_DELAY = 100;
+
+    private static final long TERMINATION_TIMEOUT = 60;
+
     @Reference
     private ResourceResolverHost resourceResolverHost;
 
+    @Reference
+    private IngestionMetrics metrics;
+
+    private int commitBatchSize;
+    private long commitInterval;
+    private int parallelism;
+    private int commitRetries;
+    private boolean compactTracks;
+
     @Override
-    public void save(List<AlbumDto> albums) throws Exception {
-        resourceResolverHost.execute(resolver -> createAlbums(resolver, albums));
+    public void save(Iterator<AlbumDto> albums) throws Exception {
+        save(albums, new RetrievalReport());
     }
 
-    private static void createAlbums(ResourceResolver resolver, List<AlbumDto> albums)
+    @Override
+    public void save(Iterator<AlbumDto> albums, RetrievalReport report) throws Exception {
+        if (parallelism > 1) {
+            saveInParallel(albums, report);
+        } else {
+            resourceResolverHost.execute(resolver -> createAlbums(resolver, albums, report));
+        }
+    }
+
+    private void saveInParallel(Iterator<AlbumDto> albums, RetrievalReport report) throws Exception {
+        // Albums are split by artist, so an artist page is only ever created by the worker that owns the artist. Every
+        // worker saves its albums with its own resolver
+        List<Partition> partitions = new ArrayList<>();
+        List<Future<?>> futures = new ArrayList<>();
+        AtomicInteger threadCounter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "album-saver-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (int i = 0; i < parallelism; i++) {
+                Partition partition = new Partition(commitBatchSize * 2);
+                partitions.add(partition);
+                futures.add(executor.submit(() -> {
+                    try {
+                        resourceResolverHost.execute(resolver -> createAlbums(resolver, partition, report));
+                        return null;
+                    } finally {
+                        partition.drain();
+                    }
+                }));
+            }
+            // Every worker is waited for even after a failure, so that no album is written after this method returns.
+            // The first failure is thrown, the others are added to it as suppressed
+            Exception failure = null;
+            try {
+                while (albums.hasNext()) {
+                    AlbumDto album = albums.next();
+                    if (album.isValid()) {
+                        int index = Math.floorMod(album.getArtist().getSlug().hashCode(), parallelism);
+                        partitions.get(index).put(album);
+                    }
+                }
+            } catch (Exception e) {
+                failure = e;
+            } finally {
+                for (Partition partition : partitions) {
+                    partition.end();
+                }
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    Exception cause = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                    if (failure == null) {
+                        failure = cause;
+                    } else {
+                        failure.addSuppressed(cause);
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            executor.shutdownNow();
+            awaitTermination(executor);
+        }
+    }
+
+    // Only waits long when the calling thread was interrupted while workers were still saving
+    private static void awaitTermination(ExecutorService executor) {
+        boolean interrupted = Thread.interrupted();
+        try {
+            if (!executor.awaitTermination(TERMINATION_TIMEOUT, TimeUnit.SECONDS)) {
+                LOG.warn("Album saver workers did not stop within {} s", TERMINATION_TIMEOUT);
+            }
+        } catch (InterruptedException e) {
+            interrupted = true;
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void createAlbums(ResourceResolver resolver, Iterator<AlbumDto> albums, RetrievalReport report)
             throws PathNotFoundException, PersistenceException, WCMException {
         Resource albumsFolder = resolver.getResource(Constants.ALBUMS_FOLDER);
         if (albumsFolder == null) {
@@ -51,65 +192,216 @@ public class AlbumSaverImpl implements AlbumSaver {
         if (artistsFolder == null) {
             throw new PathNotFoundException("Node not found: " + Constants.ARTISTS_FOLDER);
         }
+        PageManager pageManager = resolver.adaptTo(PageManager.class);
+        if (pageManager == null) {
+            throw new WCMException("Could not retrieve PageManager");
+        }
+        SlugIndex albumIndex = new SlugIndex(albumsFolder);
+        SlugIndex artistIndex = new SlugIndex(artistsFolder);
+
+        List<AlbumDto> batch = new ArrayList<>();
+        List<RetrievalReport.Counter> outcomes = new ArrayList<>();
+        long batchStart = 0;
+        while (true) {
+            if (!batch.isEmpty() && commitInterval > 0 && albums instanceof AlbumStream) {
+                // Albums already written are committed in time even when the next one is slow to come
+                long remaining = batchStart + commitInterval - System.currentTimeMillis();
+                if (remaining <= 0 || !((AlbumStream) albums).await(remaining)) {
+                    commit(resolver, pageManager, albumIndex, artistIndex, batch, outcomes, report);
+                    batch.clear();
+                    outcomes.clear();
+                    continue;
+                }
+            }
+            if (!albums.hasNext()) {
+                break;
+            }
+            AlbumDto album = albums.next();
+            if (!album.isValid()) {
+                continue;
+            }
+            if (batch.isEmpty()) {
+                batchStart = System.currentTimeMillis();
+            }
+            long writeStart = System.nanoTime();
+            outcomes.add(createOrModifyAlbumPage(resolver, pageManager, albumIndex, artistIndex, album));
+            metrics.recordTime("save.write", System.nanoTime() - writeStart);
+            batch.add(album);
+            if (batch.size() >= commitBatchSize
+                    || (commitInterval > 0 && System.currentTimeMillis() - batchStart >= commitInterval)) {
+                commit(resolver, pageManager, albumIndex, artistIndex, batch, outcomes, report);
+                batch.clear();
+                outcomes.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            commit(resolver, pageManager, albumIndex, artistIndex, batch, outcomes, report);
+        }
+    }
+
+    private void commit(
+            ResourceResolver resolver,
+            PageManager pageManager,
+            SlugIndex albumIndex,
+            SlugIndex artistIndex,
+            List<AlbumDto> batch,
+            List<RetrievalReport.Counter> outcomes,
+            RetrievalReport report) {
+        if (!resolver.hasChanges()) {
+            outcomes.forEach(report::increment);
+            return;
+        }
+        try {
+            commit(resolver, report);
+            outcomes.forEach(report::increment);
+            return;
+        } catch (PersistenceException e) {
+            // Saving the albums again after a revert also settles a page created at the same time by another
+            // instance: the page is found and updated instead
+            revert(resolver, albumIndex, artistIndex);
+            LOG.warn("Could not save {} albums at once, saving them one by one", batch.size(), e);
+        }
+        for (AlbumDto album : batch) {
+            try {
+                RetrievalReport.Counter outcome = createOrModifyAlbumPage(
+                        resolver,
+                        pageManager,
+                        albumIndex,
+                        artistIndex,
+                        album);
+                commit(resolver, report);
+                report.increment(outcome);
+            } catch (PersistenceException | WCMException e) {
+                revert(resolver, albumIndex, artistIndex);
+                fail(report, album, e);
+            }
+        }
+    }
 
-        for (AlbumDto album : albums) {
-            if (album.isValid()) {
-                createOrModifyAlbumPage(resolver, albumsFolder, artistsFolder, album);
+    private static void fail(RetrievalReport report, AlbumDto album, Exception cause) {
+        report.increment(RetrievalReport.Counter.FAILED);
+        report.addError("Could not save album " + album.getSlug() + ": " + cause.getMessage());
+        LOG.error("Could not save album {}", album.getSlug(), cause);
+    }
+
+    private void commit(ResourceResolver resolver, RetrievalReport report) throws PersistenceException {
+        for (int attempt = 0; ; attempt++) {
+            long start = System.nanoTime();
+            try {
                 resolver.commit();
+                report.increment(RetrievalReport.Counter.COMMITS);
+                return;
+            } catch (PersistenceException e) {
+                if (attempt >= commitRetries) {
+                    throw e;
+                }
+                // A conflict with a concurrent writer, such as another worker adding pages to the same folder, is
+                // usually gone once the pending changes are rebased onto the latest state of the repository
+                LOG.debug("Could not commit, retrying after refresh", e);
+                metrics.increment("save.commit.retries");
+                waitBeforeRetry(e);
+                resolver.refresh();
+            } finally {
+                long duration = System.nanoTime() - start;
+                report.addStageNanos(RetrievalReport.STAGE_COMMIT, duration);
+                metrics.recordTime("save.commit", duration);
             }
         }
     }
 
-    private static void createOrModifyAlbumPage(
+    private static void waitBeforeRetry(PersistenceException cause) throws PersistenceException {
+        // A random delay keeps the workers that failed together from retrying at the same moment again
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(MIN_RETRY_DELAY, MAX_RETRY_DELAY));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+
+    private static void revert(ResourceResolver resolver, SlugIndex albumIndex, SlugIndex artistIndex) {
+        resolver.revert();
+        // Pages created since the last commit are gone, so the indexes are read again
+        albumIndex.reload();
+        artistIndex.reload();
+    }
+
+    private RetrievalReport.Counter createOrModifyAlbumPage(
             ResourceResolver resolver,
-            Resource albumsFolder,
-            Resource artistsFolder,
+            PageManager pageManager,
+            SlugIndex albumIndex,
+            SlugIndex artistIndex,
             AlbumDto album) throws WCMException, PersistenceException {
-        PageManager pageManager = resolver.adaptTo(PageManager.class);
-        if (pageManager == null) {
-            throw new WCMException("Could not retrieve PageManager");
+        String albumSlug = album.getSlug();
+        // The page may also have been created by another instance since the index was read
+        Resource existingAlbum = albumIndex.getFolder().getChild(albumSlug);
+        if (existingAlbum != null) {
+            albumIndex.add(albumSlug);
         }
-
-        Resource existingAlbum = albumsFolder.getChild(album.getSlug());
         if (existingAlbum == null) {
             Page albumPage = pageManager.create(
-                    albumsFolder.getPath(),
-                    album.getSlug(),
+                    albumIndex.getFolder().getPath(),
+                    albumSlug,
                     ALBUM_PAGE_TEMPLATE,
                     album.getTitle());
-            Resource albumContentResource = createAlbumContentResource(resolver, albumPage, album);
-            createAlbumTracks(resolver, albumContentResource, album);
-            createArtistPage(resolver, artistsFolder, album.getArtist());
-            return;
+            albumIndex.add(albumSlug);
+            Resource albumContentResource = createAlbumContentResource(resolver, albumPage, album, compactTracks);
+            if (!compactTracks) {
+                createAlbumTracks(resolver, albumContentResource, album);
+            }
+            createArtistPage(resolver, pageManager, artistIndex, album.getArtist());
+            return RetrievalReport.Counter.CREATED;
         }
 
-        Optional.ofNullable(existingAlbum.getChild(Constants.ALBUM_RESOURCE_PATH))
+        Resource albumContentResource = existingAlbum.getChild(Constants.ALBUM_RESOURCE_PATH);
+        ModifiableValueMap valueMap = Optional.ofNullable(albumContentResource)
                 .map(res -> res.adaptTo(ModifiableValueMap.class))
-                .ifPresent(vm -> vm.putAll(getAlbumValueMap(album)));
+                .orElse(null);
+        if (valueMap == null || album.getFingerprint().equals(valueMap.get(PN_FINGERPRINT, String.class))) {
+            return RetrievalReport.Counter.UNCHANGED;
+        }
+        // Tracks in either format are replaced, so an album is left with the currently configured format only
+        ALBUM_PROPERTIES.forEach(valueMap::remove);
+        valueMap.putAll(getAlbumValueMap(album, compactTracks));
+        Resource tracksRoot = albumContentResource.getChild(Constants.TRACKS_NODE);
+        if (tracksRoot != null) {
+            resolver.delete(tracksRoot);
+        }
+        if (!compactTracks) {
+            createAlbumTracks(resolver, albumContentResource, album);
+        }
+        return RetrievalReport.Counter.UPDATED;
     }
 
-    private static Resource createAlbumContentResource(ResourceResolver resolver, Page albumPage, AlbumDto album)
-            throws PersistenceException {
+    private static Resource createAlbumContentResource(
+            ResourceResolver resolver,
+            Page albumPage,
+            AlbumDto album,
+            boolean compactTracks) throws PersistenceException {
         Resource container = resolver.getResource(albumPage.adaptTo(Resource.class), Constants.PAGE_CONTAINER_PATH);
         if (container == null) {
             throw new PersistenceException("Container resource not found at " + albumPage.getPath());
         }
-        return resolver.create(container, "album", getAlbumValueMap(album));
+        return resolver.create(container, "album", getAlbumValueMap(album, compactTracks));
     }
 
-    private static Map<String, Object> getAlbumValueMap(AlbumDto album) {
+    private static Map<String, Object> getAlbumValueMap(AlbumDto album, boolean compactTracks) {
         Map<String, Object> result = new HashMap<>();
         result.put(JcrConstants.JCR_PRIMARYTYPE, JcrConstants.NT_UNSTRUCTURED);
-        result.put(JcrResourceConstants.SLING_RESOURCE_TYPE_PROPERTY, RESOURCE_TYPE_ALBUM);
+        result.put(JcrResourceConstants.SLING_RESOURCE_TYPE_PROPERTY, Constants.ALBUM_RESOURCE_TYPE);
         result.put(JcrConstants.JCR_TITLE, album.getTitle());
+        result.put(PN_FINGERPRINT, album.getFingerprint());
         if (album.getArtist() != null) {
-            result.put("artistId", album.getArtist().getSlug());
+            result.put(Constants.PN_ARTIST_ID, album.getArtist().getSlug());
         }
         if (album.getYear() > 0) {
-            result.put("year", album.getYear());
+            result.put(Constants.PN_YEAR, album.getYear());
         }
         if (album.getImage() != null) {
-            result.put("imagePath", album.getImage());
+            result.put(PN_IMAGE_PATH, album.getImage());
+        }
+        if (compactTracks) {
+            result.putAll(TrackStorage.toProperties(album.getTracks()));
         }
         return result;
     }
@@ -121,7 +413,7 @@ public class AlbumSaverImpl implements AlbumSaver {
         }
         Resource tracksRoot = resolver.create(
                 albumResource,
-                "tracks",
+                Constants.TRACKS_NODE,
                 Collections.singletonMap(JcrConstants.JCR_PRIMARYTYPE, JcrConstants.NT_UNSTRUCTURED));
         int trackIndex = 1;
         for (TrackDto track : album.getTracks()) {
@@ -131,27 +423,30 @@ public class AlbumSaverImpl implements AlbumSaver {
                     Map.of(
                             JcrConstants.JCR_PRIMARYTYPE, JcrConstants.NT_UNSTRUCTURED,
                             JcrConstants.JCR_TITLE, track.getTitle(),
-                            "duration", track.getDuration()));
+                            TrackStorage.PN_DURATION, track.getDuration()));
         }
     }
 
-    private static void createArtistPage(ResourceResolver resolver, Resource artistsFolder, ArtistDto artist)
-            throws PersistenceException, WCMException {
-        Resource existingArtist = artistsFolder.getChild(artist.getSlug());
-        if (existingArtist != null) {
+    private static void createArtistPage(
+            ResourceResolver resolver,
+            PageManager pageManager,
+            SlugIndex artistIndex,
+            ArtistDto artist) throws PersistenceException, WCMException {
+        String artistSlug = artist.getSlug();
+        if (artistIndex.contains(artistSlug)) {
             return;
         }
-
-        PageManager pageManager = resolver.adaptTo(PageManager.class);
-        if (pageManager == null) {
-            throw new WCMException("Could not retrieve PageManager");
+        if (artistIndex.getFolder().getChild(artistSlug) != null) {
+            artistIndex.add(artistSlug);
+            return;
         }
 
         Page artistPage = pageManager.create(
-                artistsFolder.getPath(),
-                artist.getSlug(),
+                artistIndex.getFolder().getPath(),
+                artistSlug,
                 ALBUM_PAGE_TEMPLATE,
                 artist.getName());
+        artistIndex.add(artistSlug);
         createArtistContentResource(resolver, artistPage, artist);
     }
 
@@ -171,4 +466,116 @@ public class AlbumSaverImpl implements AlbumSaver {
                 JcrConstants.JCR_TITLE, artist.getName(),
                 JcrConstants.JCR_DESCRIPTION, artist.getDescription());
     }
+
+    @Activate
+    @Modified
+    private void doActivate(Config config) {
+        commitBatchSize = Math.max(1, config.commitBatchSize());
+        commitInterval = config.commitInterval();
+        parallelism = Math.max(1, config.parallelism());
+        commitRetries = Math.max(0, config.commitRetries());
+        compactTracks = config.compactTracks();
+    }
+
+    // Albums of one partition passed from the thread reading the source to the worker saving them
+    private static class Partition implements AlbumStream {
+
+        private static final AlbumDto END = new AlbumDto(null, null, 0, null, null);
+
+        private final BlockingQueue<AlbumDto> queue;
+
+        private AlbumDto next;
+
+        Partition(int capacity) {
+            this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        }
+
+        void put(AlbumDto album) throws InterruptedException {
+            queue.put(album);
+        }
+
+        void end() throws InterruptedException {
+            queue.put(END);
+        }
+
+        // Called by the worker when it stops, so that the reading thread never waits on a queue nobody takes from
+        void drain() throws InterruptedException {
+            while (next != END) {
+                next = queue.take();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                try {
+                    next = queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    next = END;
+                }
+            }
+            return next != END;
+        }
+
+        @Override
+        public boolean await(long timeout) {
+            if (next == null) {
+                try {
+                    next = queue.poll(timeout, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    next = END;
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public AlbumDto next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            AlbumDto result = next;
+            next = null;
+            return result;
+        }
+    }
+
+    @ObjectClassDefinition(name = "Sample AEM Project - Album Saver Configuration")
+    public @interface Config {
+
+        @AttributeDefinition(
+                name = "Commit batch size",
+                description = "Number of albums saved with a single commit. 1 means every album is committed separately",
+                type = AttributeType.INTEGER)
+        int commitBatchSize() default 20;
+
+        @AttributeDefinition(
+                name = "Commit interval",
+                description = "Max time in milliseconds albums wait for their batch to be committed. 0 means no limit",
+                type = AttributeType.LONG)
+        long commitInterval() default 5_000;
+
+        @AttributeDefinition(
+                name = "Parallel workers",
+                description = "Number of workers saving albums at the same time, each with its own resolver. Albums "
+                        + "are split between workers by artist. 1 means albums are saved one after another",
+                type = AttributeType.INTEGER)
+        int parallelism() default 1;
+
+        @AttributeDefinition(
+                name = "Commit retries",
+                description = "Number of times a commit that failed because of a conflicting change is retried after "
+                        + "refreshing the resolver",
+                type = AttributeType.INTEGER)
+        int commitRetries() default 2;
+
+        @AttributeDefinition(
+                name = "Store tracks as properties",
+                description = "Keep track titles and durations in two multi-value properties of the album instead of "
+                        + "a node per track. Existing albums are converted by the track migration job",
+                type = AttributeType.BOOLEAN)
+        boolean compactTracks() default true;
+    }
 }
@@ -0,0 +1,13 @@
+package com.exadel.aem.core.services.impl;
+
+import com.exadel.aem.core.dto.AlbumDto;
+
+import java.util.Iterator;
+
+// Albums read one by one, where the reader can stop waiting for the next one after some time
+interface AlbumStream extends Iterator<AlbumDto> {
+
+    // Waits up to the given time in milliseconds for the next album or for the end of the albums. Returns false when
+    // neither came in time, so that hasNext() would still block
+    boolean await(long timeout);
+}
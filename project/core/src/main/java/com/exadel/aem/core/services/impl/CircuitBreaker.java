@@ -0,0 +1,64 @@
+package com.exadel.aem.core.services.impl;
+
+class CircuitBreaker {
+
+    private final int failureThreshold;
+
+    private final long openMillis;
+
+    private int failures;
+
+    private long openedAt;
+
+    private Permit trial;
+
+    CircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    // Returns null when the request is not allowed. Otherwise the permit is handed back with release() once the request
+    // is over
+    synchronized Permit allowRequest() {
+        if (failureThreshold <= 0 || failures < failureThreshold) {
+            return Permit.REGULAR;
+        }
+        // After the open period is over a single trial request is let through to check whether the source recovered
+        if (trial == null && System.currentTimeMillis() - openedAt >= openMillis) {
+            trial = new Permit();
+            return trial;
+        }
+        return null;
+    }
+
+    synchronized void recordSuccess() {
+        failures = 0;
+        trial = null;
+    }
+
+    synchronized void recordFailure() {
+        failures++;
+        if (failures >= failureThreshold) {
+            openedAt = System.currentTimeMillis();
+            trial = null;
+        }
+    }
+
+    // Ends a trial request that neither succeeded nor failed in a way that is counted, e.g. with a 404 or a parsing
+    // error. It does not prove that the source recovered, so the breaker stays open for another period. Only the holder
+    // of the current trial ends it, other permits are ignored
+    synchronized void release(Permit permit) {
+        if (permit != null && permit == trial) {
+            openedAt = System.currentTimeMillis();
+            trial = null;
+        }
+    }
+
+    static final class Permit {
+
+        private static final Permit REGULAR = new Permit();
+
+        private Permit() {
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.exadel.aem.core.services.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Streams a response body that has to be read to the end within the given time. The stream of
+// BodyHandlers.ofInputStream() waits for data with no time limit, so a server stalling mid-body would block the reading
+// thread for good. This one fails with a SocketTimeoutException instead
+class DeadlineBodySubscriber extends InputStream implements HttpResponse.BodySubscriber<InputStream> {
+
+    private static final List<ByteBuffer> END = new ArrayList<>();
+
+    private final BlockingQueue<List<ByteBuffer>> buffers = new LinkedBlockingQueue<>();
+
+    private final long timeoutMillis;
+
+    private final long deadline;
+
+    private volatile Flow.Subscription subscription;
+
+    private volatile Throwable failure;
+
+    private volatile boolean closed;
+
+    private boolean ended;
+
+    private Iterator<ByteBuffer> currentList;
+
+    private ByteBuffer currentBuffer;
+
+    DeadlineBodySubscriber(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    @Override
+    public CompletionStage<InputStream> getBody() {
+        return CompletableFuture.completedFuture(this);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (this.subscription != null || closed) {
+            subscription.cancel();
+            return;
+        }
+        this.subscription = subscription;
+        subscription.request(1);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> item) {
+        buffers.offer(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        failure = throwable;
+        buffers.offer(END);
+    }
+
+    @Override
+    public void onComplete() {
+        buffers.offer(END);
+    }
+
+    @Override
+    public int read() throws IOException {
+        ByteBuffer buffer = nextBuffer();
+        return buffer != null ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        ByteBuffer buffer = nextBuffer();
+        if (buffer == null) {
+            return -1;
+        }
+        int count = Math.min(length, buffer.remaining());
+        buffer.get(bytes, offset, count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return currentBuffer != null ? currentBuffer.remaining() : 0;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        Flow.Subscription currentSubscription = subscription;
+        if (currentSubscription != null) {
+            currentSubscription.cancel();
+        }
+        buffers.clear();
+    }
+
+    private ByteBuffer nextBuffer() throws IOException {
+        while (currentBuffer == null || !currentBuffer.hasRemaining()) {
+            if (currentList != null && currentList.hasNext()) {
+                currentBuffer = currentList.next();
+                continue;
+            }
+            if (ended) {
+                return null;
+            }
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            List<ByteBuffer> item = poll();
+            if (item == END) {
+                ended = true;
+                if (failure != null) {
+                    throw failure instanceof IOException ? (IOException) failure : new IOException(failure);
+                }
+                return null;
+            }
+            currentList = item.iterator();
+            subscription.request(1);
+        }
+        return currentBuffer;
+    }
+
+    private List<ByteBuffer> poll() throws IOException {
+        List<ByteBuffer> result;
+        try {
+            // Data that already came is still read after the deadline
+            long remaining = deadline - System.nanoTime();
+            result = remaining > 0 ? buffers.poll(remaining, TimeUnit.NANOSECONDS) : buffers.poll();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading the response body");
+        }
+        if (result == null) {
+            close();
+            throw new SocketTimeoutException("Response body not read within " + timeoutMillis + " ms");
+        }
+        return result;
+    }
+}
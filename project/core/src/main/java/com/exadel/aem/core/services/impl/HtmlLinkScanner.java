@@ -0,0 +1,190 @@
+package com.exadel.aem.core.services.impl;
+
+import org.jsoup.parser.Parser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Set;
+
+class HtmlLinkScanner {
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final int EOF = -1;
+
+    private static final String ATTR_HREF = "href";
+    private static final Set<String> RAW_TEXT_TAGS = Set.of("script", "style", "textarea", "title", "xmp", "iframe");
+
+    private final Reader reader;
+
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    private final StringBuilder token = new StringBuilder();
+
+    HtmlLinkScanner(Reader reader) {
+        this.reader = reader;
+    }
+
+    // Returns the value of the next href attribute in the document, or null when the end of the input is reached.
+    // Only the markup is tokenized: no DOM is built, and the input is read no further than needed
+    String nextHref() throws IOException {
+        int c;
+        while ((c = read()) != EOF) {
+            if (c != '<') {
+                continue;
+            }
+            c = read();
+            if (c == '!') {
+                skipDeclaration();
+            } else if (c == '/' || c == '?') {
+                skipUntil('>');
+            } else if (isLetter(c)) {
+                String href = readStartTag(c);
+                if (href != null) {
+                    return Parser.unescapeEntities(href, true);
+                }
+            } else if (c != EOF) {
+                unread();
+            }
+        }
+        return null;
+    }
+
+    private String readStartTag(int first) throws IOException {
+        token.setLength(0);
+        token.append((char) Character.toLowerCase(first));
+        int c;
+        while ((c = read()) != EOF && !isWhitespace(c) && c != '/' && c != '>') {
+            token.append((char) Character.toLowerCase(c));
+        }
+        String tagName = token.toString();
+        String href = null;
+        while (c != EOF && c != '>') {
+            if (isWhitespace(c) || c == '/') {
+                c = read();
+                continue;
+            }
+            token.setLength(0);
+            while (c != EOF && !isWhitespace(c) && c != '=' && c != '>' && c != '/') {
+                token.append((char) c);
+                c = read();
+            }
+            boolean isHref = href == null && ATTR_HREF.equalsIgnoreCase(token.toString());
+            while (isWhitespace(c)) {
+                c = read();
+            }
+            if (c != '=') {
+                if (isHref) {
+                    href = "";
+                }
+                continue;
+            }
+            c = read();
+            while (isWhitespace(c)) {
+                c = read();
+            }
+            token.setLength(0);
+            if (c == '"' || c == '\'') {
+                int quote = c;
+                while ((c = read()) != EOF && c != quote) {
+                    token.append((char) c);
+                }
+                c = read();
+            } else {
+                while (c != EOF && !isWhitespace(c) && c != '>') {
+                    token.append((char) c);
+                    c = read();
+                }
+            }
+            if (isHref) {
+                href = token.toString();
+            }
+        }
+        if (c == EOF) {
+            // A tag cut off by the end of the input is not an element
+            return null;
+        }
+        if (RAW_TEXT_TAGS.contains(tagName)) {
+            skipRawText(tagName);
+        }
+        return href;
+    }
+
+    private void skipDeclaration() throws IOException {
+        int c = read();
+        if (c == '-' && read() == '-') {
+            // Comment: skip until "-->"
+            int dashes = 0;
+            while ((c = read()) != EOF) {
+                if (c == '>' && dashes >= 2) {
+                    return;
+                }
+                dashes = c == '-' ? dashes + 1 : 0;
+            }
+            return;
+        }
+        if (c != '>') {
+            skipUntil('>');
+        }
+    }
+
+    private void skipRawText(String tagName) throws IOException {
+        int c;
+        while ((c = read()) != EOF) {
+            if (c != '<' || (c = read()) != '/') {
+                if (c == '<') {
+                    unread();
+                }
+                continue;
+            }
+            int matched = 0;
+            while (matched < tagName.length() && Character.toLowerCase(c = read()) == tagName.charAt(matched)) {
+                matched++;
+            }
+            if (matched == tagName.length()) {
+                c = read();
+                if (c == '>' || isWhitespace(c) || c == '/') {
+                    if (c != '>') {
+                        skipUntil('>');
+                    }
+                    return;
+                }
+            }
+            if (c == '<') {
+                unread();
+            }
+        }
+    }
+
+    private void skipUntil(char expected) throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c != EOF && c != expected);
+    }
+
+    private int read() throws IOException {
+        if (position == limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return EOF;
+            }
+        }
+        return buffer[position++];
+    }
+
+    private void unread() {
+        position--;
+    }
+
+    private static boolean isLetter(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+    }
+}
@@ -0,0 +1,219 @@
+package com.exadel.aem.core.services.impl;
+
+import com.exadel.aem.core.services.HttpFetcher;
+import org.apache.commons.lang3.StringUtils;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.AttributeType;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+@Component(service = HttpFetcher.class)
+@Designate(ocd = HttpFetcherImpl.Config.class)
+public class HttpFetcherImpl implements HttpFetcher {
+
+    private static final String HEADER_ACCEPT_ENCODING = "Accept-Encoding";
+    private static final String HEADER_CONTENT_ENCODING = "Content-Encoding";
+    private static final String HEADER_CONTENT_TYPE = "Content-Type";
+    private static final String HEADER_USER_AGENT = "User-Agent";
+
+    private static final String ENCODING_GZIP = "gzip";
+    private static final String ENCODING_DEFLATE = "deflate";
+    private static final String CHARSET_PARAMETER = "charset=";
+
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+
+    private HttpClient client;
+    private Duration readTimeout;
+    private int maxConnectionsPerHost;
+    private boolean compression;
+    private String userAgent;
+
+    @Override
+    public Response fetch(String url, Map<String, String> headers) throws IOException {
+        URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            throw new MalformedURLException(e.getMessage());
+        }
+        if (uri.getHost() == null) {
+            throw new MalformedURLException("No host in URL " + url);
+        }
+
+        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder(uri).timeout(readTimeout).GET();
+        if (StringUtils.isNotBlank(userAgent)) {
+            requestBuilder.header(HEADER_USER_AGENT, userAgent);
+        }
+        if (compression) {
+            requestBuilder.header(HEADER_ACCEPT_ENCODING, ENCODING_GZIP + ", " + ENCODING_DEFLATE);
+        }
+        headers.forEach(requestBuilder::header);
+
+        Semaphore permits = hostPermits.computeIfAbsent(
+                uri.getHost().toLowerCase(),
+                host -> new Semaphore(maxConnectionsPerHost, true));
+        acquire(permits, url);
+        try {
+            long timeoutMillis = readTimeout.toMillis();
+            HttpResponse<InputStream> response = client.send(
+                    requestBuilder.build(),
+                    responseInfo -> new DeadlineBodySubscriber(timeoutMillis));
+            return new ResponseImpl(response, permits);
+        } catch (InterruptedException e) {
+            permits.release();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while fetching " + url);
+        } catch (IOException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void acquire(Semaphore permits, String url) throws IOException {
+        try {
+            if (!permits.tryAcquire(readTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new IOException("Timed out waiting for a free connection to fetch " + url);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a free connection to fetch " + url);
+        }
+    }
+
+    @Activate
+    @Modified
+    private void doActivate(Config config) {
+        this.readTimeout = Duration.ofMillis(config.readTimeout());
+        this.maxConnectionsPerHost = Math.max(1, config.maxConnectionsPerHost());
+        this.compression = config.compression();
+        this.userAgent = config.userAgent();
+        this.hostPermits.clear();
+        this.client = HttpClient
+                .newBuilder()
+                .version(config.http2() ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofMillis(config.connectTimeout()))
+                .build();
+    }
+
+    private static class ResponseImpl implements Response {
+
+        private final HttpResponse<InputStream> response;
+
+        private final Semaphore permits;
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private InputStream body;
+
+        ResponseImpl(HttpResponse<InputStream> response, Semaphore permits) {
+            this.response = response;
+            this.permits = permits;
+        }
+
+        @Override
+        public String getUrl() {
+            return response.uri().toString();
+        }
+
+        @Override
+        public int getStatus() {
+            return response.statusCode();
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return response.headers().firstValue(name).orElse(null);
+        }
+
+        @Override
+        public String getCharset() {
+            String contentType = StringUtils.defaultString(getHeader(HEADER_CONTENT_TYPE)).toLowerCase();
+            int charsetPosition = contentType.indexOf(CHARSET_PARAMETER);
+            if (charsetPosition < 0) {
+                return null;
+            }
+            String charset = StringUtils.substringBefore(
+                    contentType.substring(charsetPosition + CHARSET_PARAMETER.length()),
+                    ";");
+            return StringUtils.defaultIfBlank(StringUtils.strip(charset, " \"'"), null);
+        }
+
+        @Override
+        public synchronized InputStream getBody() throws IOException {
+            if (body == null) {
+                body = decode(response.body(), getHeader(HEADER_CONTENT_ENCODING));
+            }
+            return body;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                response.body().close();
+            } finally {
+                permits.release();
+            }
+        }
+
+        private static InputStream decode(InputStream stream, String contentEncoding) throws IOException {
+            if (ENCODING_GZIP.equalsIgnoreCase(StringUtils.trim(contentEncoding))) {
+                return new GZIPInputStream(stream);
+            }
+            if (ENCODING_DEFLATE.equalsIgnoreCase(StringUtils.trim(contentEncoding))) {
+                return new InflaterInputStream(stream);
+            }
+            return stream;
+        }
+    }
+
+    @ObjectClassDefinition(name = "Sample AEM Project - HTTP Fetcher Configuration")
+    public @interface Config {
+
+        @AttributeDefinition(name = "Connection timeout", type = AttributeType.INTEGER)
+        int connectTimeout() default 5_000;
+
+        @AttributeDefinition(
+                name = "Read timeout",
+                description = "Time in milliseconds to wait for a free connection to the host, then for the response headers, "
+                        + "then for the whole response body to be read",
+                type = AttributeType.INTEGER)
+        int readTimeout() default 10_000;
+
+        @AttributeDefinition(name = "Max connections per host", type = AttributeType.INTEGER)
+        int maxConnectionsPerHost() default 8;
+
+        @AttributeDefinition(name = "Use HTTP/2", type = AttributeType.BOOLEAN)
+        boolean http2() default true;
+
+        @AttributeDefinition(name = "Request compressed responses", type = AttributeType.BOOLEAN)
+        boolean compression() default true;
+
+        @AttributeDefinition(name = "User agent")
+        String userAgent() default "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 "
+                + "(KHTML, like Gecko) Chrome/53.0.2785.143 Safari/537.36";
+    }
+}
@@ -0,0 +1,118 @@
+package com.exadel.aem.core.services.impl;
+
+import com.adobe.granite.jmx.annotation.AnnotatedStandardMBean;
+import com.exadel.aem.core.services.IngestionMetrics;
+import org.osgi.service.component.annotations.Component;
+
+import javax.management.DynamicMBean;
+import javax.management.NotCompliantMBeanException;
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import javax.management.openmbean.TabularData;
+import javax.management.openmbean.TabularDataSupport;
+import javax.management.openmbean.TabularType;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component(
+        service = {IngestionMetrics.class, DynamicMBean.class},
+        property = "jmx.objectname=com.exadel.aem.sample-project:type=IngestionMetrics")
+public class IngestionMetricsImpl extends AnnotatedStandardMBean implements IngestionMetrics, IngestionMetricsMBean {
+
+    private static final String ITEM_NAME = "name";
+    private static final String ITEM_VALUE = "value";
+    private static final String ITEM_COUNT = "count";
+    private static final String ITEM_MEAN = "mean";
+    private static final String ITEM_P50 = "p50";
+    private static final String ITEM_P95 = "p95";
+    private static final String ITEM_P99 = "p99";
+    private static final String ITEM_MAX = "max";
+
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    private final Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+
+    public IngestionMetricsImpl() throws NotCompliantMBeanException {
+        super(IngestionMetricsMBean.class);
+    }
+
+    @Override
+    public void increment(String name) {
+        add(name, 1);
+    }
+
+    @Override
+    public void add(String name, long value) {
+        counters.computeIfAbsent(name, key -> new AtomicLong()).addAndGet(value);
+    }
+
+    @Override
+    public void recordTime(String name, long nanos) {
+        latencies.computeIfAbsent(name, key -> new LatencyHistogram()).record(nanos);
+    }
+
+    @Override
+    public TabularData getCounters() throws OpenDataException {
+        CompositeType rowType = new CompositeType(
+                "counter",
+                "Counter",
+                new String[] {ITEM_NAME, ITEM_VALUE},
+                new String[] {"Name", "Value"},
+                new OpenType<?>[] {SimpleType.STRING, SimpleType.LONG});
+        TabularDataSupport result = new TabularDataSupport(
+                new TabularType("counters", "Counters", rowType, new String[] {ITEM_NAME}));
+        for (Map.Entry<String, AtomicLong> entry : new TreeMap<>(counters).entrySet()) {
+            result.put(new CompositeDataSupport(
+                    rowType,
+                    new String[] {ITEM_NAME, ITEM_VALUE},
+                    new Object[] {entry.getKey(), entry.getValue().get()}));
+        }
+        return result;
+    }
+
+    @Override
+    public TabularData getLatencies() throws OpenDataException {
+        String[] itemNames = {ITEM_NAME, ITEM_COUNT, ITEM_MEAN, ITEM_P50, ITEM_P95, ITEM_P99, ITEM_MAX};
+        CompositeType rowType = new CompositeType(
+                "latency",
+                "Duration in milliseconds",
+                itemNames,
+                new String[] {"Name", "Count", "Mean", "50th percentile", "95th percentile", "99th percentile", "Max"},
+                new OpenType<?>[] {
+                        SimpleType.STRING,
+                        SimpleType.LONG,
+                        SimpleType.DOUBLE,
+                        SimpleType.DOUBLE,
+                        SimpleType.DOUBLE,
+                        SimpleType.DOUBLE,
+                        SimpleType.DOUBLE});
+        TabularDataSupport result = new TabularDataSupport(
+                new TabularType("latencies", "Durations", rowType, new String[] {ITEM_NAME}));
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(latencies).entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            result.put(new CompositeDataSupport(
+                    rowType,
+                    itemNames,
+                    new Object[] {
+                            entry.getKey(),
+                            histogram.getCount(),
+                            histogram.getMean(),
+                            histogram.getPercentile(50),
+                            histogram.getPercentile(95),
+                            histogram.getPercentile(99),
+                            histogram.getMax()}));
+        }
+        return result;
+    }
+
+    @Override
+    public void reset() {
+        counters.clear();
+        latencies.clear();
+    }
+}
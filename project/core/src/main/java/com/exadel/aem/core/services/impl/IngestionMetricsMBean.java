@@ -0,0 +1,19 @@
+package com.exadel.aem.core.services.impl;
+
+import com.adobe.granite.jmx.annotation.Description;
+
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.TabularData;
+
+@Description("Sample AEM Project - Album ingestion metrics")
+public interface IngestionMetricsMBean {
+
+    @Description("Counters of albums, pages, requests and bytes since the start or the last reset")
+    TabularData getCounters() throws OpenDataException;
+
+    @Description("Durations in milliseconds with their mean, p50, p95, p99 and max values")
+    TabularData getLatencies() throws OpenDataException;
+
+    @Description("Resets all the counters and durations")
+    void reset();
+}
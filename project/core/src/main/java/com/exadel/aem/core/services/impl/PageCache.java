@@ -0,0 +1,57 @@
+package com.exadel.aem.core.services.impl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+class PageCache<T> {
+
+    private final int maxSize;
+    private final Map<String, Entry<T>> entries;
+
+    PageCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PageCache.Entry<T>> eldest) {
+                return size() > PageCache.this.maxSize;
+            }
+        };
+    }
+
+    synchronized Entry<T> get(String url) {
+        return entries.get(url);
+    }
+
+    synchronized void put(String url, Entry<T> entry) {
+        if (maxSize > 0) {
+            entries.put(url, entry);
+        }
+    }
+
+    static class Entry<T> {
+
+        private final String eTag;
+
+        private final String lastModified;
+
+        private final T content;
+
+        Entry(String eTag, String lastModified, T content) {
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+            this.content = content;
+        }
+
+        String getETag() {
+            return eTag;
+        }
+
+        String getLastModified() {
+            return lastModified;
+        }
+
+        T getContent() {
+            return content;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.exadel.aem.core.services.impl;
+
+import com.day.cq.commons.jcr.JcrConstants;
+import com.exadel.aem.core.Constants;
+import com.exadel.aem.core.services.ResourceResolverHost;
+import org.apache.sling.api.resource.ModifiableValueMap;
+import org.apache.sling.api.resource.PersistenceException;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ValueMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.jcr.PathNotFoundException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// A node in the repository telling which cluster instance is running a retrieval and until when. Instances racing for
+// a free lease write the same node, so all but one of them fail to commit
+class RetrievalLease {
+    private static final Logger LOG = LoggerFactory.getLogger(RetrievalLease.class);
+
+    private static final String NODE_NAME = "retrieval-lease";
+    private static final String PN_OWNER = "owner";
+    private static final String PN_EXPIRES = "expires";
+
+    private final ResourceResolverHost resourceResolverHost;
+    private final String owner;
+    private final long duration;
+
+    RetrievalLease(ResourceResolverHost resourceResolverHost, String owner, long duration) {
+        this.resourceResolverHost = resourceResolverHost;
+        this.owner = owner;
+        this.duration = duration;
+    }
+
+    boolean acquire() throws Exception {
+        AtomicBoolean acquired = new AtomicBoolean();
+        resourceResolverHost.execute(resolver -> acquired.set(acquire(resolver)));
+        return acquired.get();
+    }
+
+    void release() {
+        try {
+            resourceResolverHost.execute(this::release);
+        } catch (Exception e) {
+            LOG.warn("Could not release the retrieval lease, it will expire by itself", e);
+        }
+    }
+
+    private boolean acquire(ResourceResolver resolver) throws PathNotFoundException, PersistenceException {
+        Resource folder = resolver.getResource(Constants.VAR_FOLDER);
+        if (folder == null) {
+            throw new PathNotFoundException("Node not found: " + Constants.VAR_FOLDER);
+        }
+        long now = System.currentTimeMillis();
+        Resource lease = folder.getChild(NODE_NAME);
+        if (lease == null) {
+            Map<String, Object> properties = new HashMap<>();
+            properties.put(JcrConstants.JCR_PRIMARYTYPE, JcrConstants.NT_UNSTRUCTURED);
+            properties.put(PN_OWNER, owner);
+            properties.put(PN_EXPIRES, now + duration);
+            resolver.create(folder, NODE_NAME, properties);
+        } else {
+            ValueMap valueMap = lease.getValueMap();
+            String currentOwner = valueMap.get(PN_OWNER, String.class);
+            if (!owner.equals(currentOwner) && valueMap.get(PN_EXPIRES, 0L) > now) {
+                LOG.info("Retrieval lease is held by {}", currentOwner);
+                return false;
+            }
+            ModifiableValueMap modifiableValueMap = lease.adaptTo(ModifiableValueMap.class);
+            if (modifiableValueMap == null) {
+                throw new PersistenceException("Could not modify " + lease.getPath());
+            }
+            modifiableValueMap.put(PN_OWNER, owner);
+            modifiableValueMap.put(PN_EXPIRES, now + duration);
+        }
+        try {
+            resolver.commit();
+            return true;
+        } catch (PersistenceException e) {
+            LOG.info("Retrieval lease was taken by another instance");
+            resolver.revert();
+            return false;
+        }
+    }
+
+    private void release(ResourceResolver resolver) throws PersistenceException {
+        Resource lease = resolver.getResource(Constants.VAR_FOLDER + "/" + NODE_NAME);
+        if (lease == null || !owner.equals(lease.getValueMap().get(PN_OWNER, String.class))) {
+            return;
+        }
+        resolver.delete(lease);
+        resolver.commit();
+    }
+}
@@ -0,0 +1,212 @@
+package com.exadel.aem.core.services.impl;
+
+import com.day.cq.commons.jcr.JcrConstants;
+import com.exadel.aem.core.dto.RetrievalReport;
+import com.exadel.aem.core.services.ResourceResolverHost;
+import com.exadel.aem.core.services.RetrievalReportStore;
+import com.exadel.aem.core.utils.SlugUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.sling.api.resource.PersistenceException;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ResourceUtil;
+import org.apache.sling.api.resource.ValueMap;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.AttributeType;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component(service = RetrievalReportStore.class)
+@Designate(ocd = RetrievalReportStoreImpl.Config.class)
+public class RetrievalReportStoreImpl implements RetrievalReportStore {
+
+    private static final String NODE_NAME_FORMAT = "yyyyMMdd-HHmmss-SSS";
+    private static final String FOLDER_TYPE = "sling:Folder";
+
+    private static final String NODE_COUNTS = "counts";
+    private static final String NODE_STAGES = "stages";
+    private static final String NODE_SOURCES = "sources";
+
+    private static final String PN_ID = "id";
+    private static final String PN_STATE = "state";
+    private static final String PN_SUBMITTED = "submitted";
+    private static final String PN_STARTED = "started";
+    private static final String PN_FINISHED = "finished";
+    private static final String PN_ERROR = "error";
+    private static final String PN_ERRORS = "errors";
+    private static final String PN_JOINED = "joined";
+    private static final String PN_NAME = "name";
+    private static final String PN_COUNT = "count";
+    private static final String PN_DURATION = "duration";
+
+    @Reference
+    private ResourceResolverHost resourceResolverHost;
+
+    private boolean enabled;
+    private String path;
+    private int maxRuns;
+
+    @Override
+    public void save(RetrievalReport report) throws Exception {
+        if (enabled) {
+            resourceResolverHost.execute(resolver -> save(resolver, report));
+        }
+    }
+
+    @Override
+    public List<Map<String, Object>> getRecentRuns(int limit) throws Exception {
+        List<Map<String, Object>> result = new ArrayList<>();
+        resourceResolverHost.execute(resolver -> {
+            Resource folder = resolver.getResource(path);
+            if (folder == null) {
+                return;
+            }
+            List<Resource> runs = getRunsByAge(folder);
+            Collections.reverse(runs);
+            runs.stream().limit(limit).map(RetrievalReportStoreImpl::toMap).forEach(result::add);
+        });
+        return result;
+    }
+
+    private void save(ResourceResolver resolver, RetrievalReport report) throws PersistenceException {
+        Resource folder = ResourceUtil.getOrCreateResource(resolver, path, FOLDER_TYPE, FOLDER_TYPE, false);
+        // Node names start with the time so that sorting them by name sorts the runs by age
+        String name = new SimpleDateFormat(NODE_NAME_FORMAT).format(new Date(report.getSubmitted()))
+                + "-"
+                + StringUtils.left(report.getId(), 8);
+        Resource run = resolver.create(folder, name, getRunProperties(report));
+
+        Map<String, Object> counts = newProperties();
+        report.getCounts().forEach((counter, value) -> counts.put(counter.name().toLowerCase(), (long) value));
+        resolver.create(run, NODE_COUNTS, counts);
+
+        Map<String, Object> stages = newProperties();
+        Map<String, Long> sourceDurations = new HashMap<>();
+        report.getStageTimes().forEach((stage, value) -> {
+            if (stage.startsWith(RetrievalReport.STAGE_SOURCE_PREFIX)) {
+                sourceDurations.put(stage.substring(RetrievalReport.STAGE_SOURCE_PREFIX.length()), value);
+            } else {
+                stages.put(stage, value);
+            }
+        });
+        resolver.create(run, NODE_STAGES, stages);
+
+        Resource sources = resolver.create(run, NODE_SOURCES, newProperties());
+        Map<String, Integer> sourceCounts = report.getSourceCounts();
+        for (Map.Entry<String, Long> entry : sourceDurations.entrySet()) {
+            Map<String, Object> source = newProperties();
+            source.put(PN_NAME, entry.getKey());
+            source.put(PN_DURATION, entry.getValue());
+            source.put(PN_COUNT, (long) sourceCounts.getOrDefault(entry.getKey(), 0));
+            String slug = StringUtils.defaultIfEmpty(SlugUtils.toSlug(entry.getKey()), "source");
+            String sourceName = slug;
+            for (int i = 2; sources.getChild(sourceName) != null; i++) {
+                sourceName = SlugUtils.join(slug, String.valueOf(i));
+            }
+            resolver.create(sources, sourceName, source);
+        }
+
+        List<Resource> runs = getRunsByAge(folder);
+        for (int i = 0; i < runs.size() - maxRuns; i++) {
+            resolver.delete(runs.get(i));
+        }
+        resolver.commit();
+    }
+
+    private static Map<String, Object> getRunProperties(RetrievalReport report) {
+        Map<String, Object> result = newProperties();
+        result.put(PN_ID, report.getId());
+        result.put(PN_STATE, report.getState().name());
+        result.put(PN_SUBMITTED, report.getSubmitted());
+        result.put(PN_STARTED, report.getStarted());
+        result.put(PN_FINISHED, report.getFinished());
+        if (report.getError() != null) {
+            result.put(PN_ERROR, report.getError());
+        }
+        if (!report.getErrors().isEmpty()) {
+            result.put(PN_ERRORS, report.getErrors().toArray(new String[0]));
+        }
+        if (report.getJoinedId() != null) {
+            result.put(PN_JOINED, report.getJoinedId());
+        }
+        return result;
+    }
+
+    private static Map<String, Object> newProperties() {
+        Map<String, Object> result = new HashMap<>();
+        result.put(JcrConstants.JCR_PRIMARYTYPE, JcrConstants.NT_UNSTRUCTURED);
+        return result;
+    }
+
+    private static List<Resource> getRunsByAge(Resource folder) {
+        List<Resource> result = new ArrayList<>();
+        folder.getChildren().forEach(result::add);
+        result.sort((first, second) -> first.getName().compareTo(second.getName()));
+        return result;
+    }
+
+    private static Map<String, Object> toMap(Resource run) {
+        Map<String, Object> result = getProperties(run.getValueMap());
+        Map<String, Object> sources = new LinkedHashMap<>();
+        for (Resource child : run.getChildren()) {
+            if (NODE_SOURCES.equals(child.getName())) {
+                child.getChildren().forEach(source -> {
+                    Map<String, Object> properties = getProperties(source.getValueMap());
+                    Object name = properties.remove(PN_NAME);
+                    sources.put(name != null ? name.toString() : source.getName(), properties);
+                });
+            } else {
+                result.put(child.getName(), getProperties(child.getValueMap()));
+            }
+        }
+        result.put(NODE_SOURCES, sources);
+        return result;
+    }
+
+    private static Map<String, Object> getProperties(ValueMap valueMap) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        valueMap.forEach((key, value) -> {
+            if (!key.startsWith("jcr:")) {
+                result.put(key, value);
+            }
+        });
+        return result;
+    }
+
+    @Activate
+    @Modified
+    private void doActivate(Config config) {
+        enabled = config.enabled();
+        path = config.path();
+        maxRuns = Math.max(1, config.maxRuns());
+    }
+
+    @ObjectClassDefinition(name = "Sample AEM Project - Retrieval Report Store Configuration")
+    public @interface Config {
+
+        @AttributeDefinition(name = "Enabled", type = AttributeType.BOOLEAN)
+        boolean enabled() default true;
+
+        @AttributeDefinition(name = "Path", description = "Folder where a report of every retrieval run is saved")
+        String path() default "/var/sample-project/runs";
+
+        @AttributeDefinition(
+                name = "Max runs",
+                description = "Number of the latest run reports kept. Older ones are deleted",
+                type = AttributeType.INTEGER)
+        int maxRuns() default 100;
+    }
+}
@@ -0,0 +1,68 @@
+package com.exadel.aem.core.services.impl;
+
+import org.apache.http.HttpStatus;
+import org.jsoup.HttpStatusException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.MalformedURLException;
+import java.util.concurrent.ThreadLocalRandom;
+
+class RetryPolicy {
+
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+
+    private final int maxRetries;
+
+    private final long baseDelay;
+
+    private final long maxDelay;
+
+    RetryPolicy(int maxRetries, long baseDelay, long maxDelay) {
+        this.maxRetries = Math.max(0, maxRetries);
+        this.baseDelay = Math.max(1, baseDelay);
+        this.maxDelay = Math.max(this.baseDelay, maxDelay);
+    }
+
+    <T> T execute(Attempt<T> attempt) throws IOException {
+        int retry = 0;
+        while (true) {
+            try {
+                return attempt.run();
+            } catch (IOException e) {
+                if (retry >= maxRetries || !isTransient(e)) {
+                    throw e;
+                }
+                sleep(getDelay(retry++));
+            }
+        }
+    }
+
+    private long getDelay(int retry) {
+        long delay = Math.min(maxDelay, baseDelay << Math.min(retry, 30));
+        // "Equal jitter": half of the delay is kept, the other half is randomized to spread concurrent retries
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    static boolean isTransient(IOException e) {
+        if (e instanceof HttpStatusException) {
+            int status = ((HttpStatusException) e).getStatusCode();
+            return status == SC_TOO_MANY_REQUESTS || status >= HttpStatus.SC_INTERNAL_SERVER_ERROR;
+        }
+        return !(e instanceof MalformedURLException) && !Thread.currentThread().isInterrupted();
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry");
+        }
+    }
+
+    interface Attempt<T> {
+
+        T run() throws IOException;
+    }
+}
@@ -0,0 +1,217 @@
+package com.exadel.aem.core.services.impl;
+
+import com.exadel.aem.core.dto.AlbumDto;
+import com.exadel.aem.core.dto.RetrievalReport;
+import com.exadel.aem.core.services.AlbumPublisher;
+import com.exadel.aem.core.services.AlbumShard;
+import com.exadel.aem.core.services.HttpFetcher;
+import com.exadel.aem.core.services.IngestionMetrics;
+import com.exadel.aem.core.services.ResourceResolverHost;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.AttributeType;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+@Component(service = Supplier.class, configurationPolicy = ConfigurationPolicy.REQUIRE)
+@Designate(ocd = ScraperDownloader.Config.class, factory = true)
+public class ScraperDownloader implements AlbumPublisher {
+
+    @Reference
+    private ResourceResolverHost resourceResolverHost;
+
+    @Reference
+    private HttpFetcher httpFetcher;
+
+    @Reference
+    private IngestionMetrics metrics;
+
+    private String name;
+    private AlbumCrawler crawler;
+
+    @Override
+    public void publish(Consumer<AlbumDto> consumer, AlbumShard shard, RetrievalReport report) {
+        crawler.publish(consumer, shard, report);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Activate
+    private void doActivate(Config config) {
+        AlbumCrawler.Settings settings = new AlbumCrawler.Settings();
+        settings.listUrl = config.listUrl();
+        settings.pageUrlFormat = config.pageUrlFormat();
+        settings.maxPages = config.maxPages();
+        settings.maxItems = config.maxItems();
+        settings.stopAtKnownAlbum = config.stopAtKnownAlbum();
+        settings.streamListPages = config.streamListPages();
+        settings.parallelism = config.maxParallelism();
+        settings.cacheSize = config.cacheSize();
+        settings.requestsPerSecond = config.requestsPerSecond();
+        settings.maxRetries = config.maxRetries();
+        settings.retryDelay = config.retryDelay();
+        settings.maxRetryDelay = config.maxRetryDelay();
+        settings.failureThreshold = config.failureThreshold();
+        settings.circuitOpenTime = config.circuitOpenTime();
+        this.name = config.name();
+        this.crawler = new AlbumCrawler(
+                name,
+                new SelectorAlbumParser(config),
+                settings,
+                httpFetcher,
+                resourceResolverHost,
+                metrics);
+    }
+
+    @Deactivate
+    private void doDeactivate() {
+        if (crawler != null) {
+            crawler.close();
+            crawler = null;
+        }
+    }
+
+    @ObjectClassDefinition(
+            name = "Sample AEM Project - Album Scraper",
+            description = "Retrieves albums from a website described with URLs, link patterns and CSS selectors. "
+                    + "Add a configuration per website")
+    public @interface Config {
+
+        @AttributeDefinition(name = "Name", description = "Name of the album source shown in logs and reports")
+        String name() default "Album Scraper";
+
+        @AttributeDefinition(name = "Albums List URL")
+        String listUrl();
+
+        @AttributeDefinition(
+                name = "Album List Page URL Format",
+                description = "URL of the further album list pages where %d stands for the page number (2, 3, etc.). "
+                        + "Leave empty to read only the first page")
+        String pageUrlFormat() default "";
+
+        @AttributeDefinition(
+                name = "Album Link Pattern",
+                description = "Regular expression matched against the links of the album list to find album pages")
+        String linkPattern();
+
+        @AttributeDefinition(name = "Album title selector", description = "CSS selector of the album title element")
+        String titleSelector();
+
+        @AttributeDefinition(name = "Artist name selector", description = "CSS selector of the artist name element")
+        String artistSelector();
+
+        @AttributeDefinition(name = "Artist description selector")
+        String artistDescriptionSelector() default "";
+
+        @AttributeDefinition(
+                name = "Album year selector",
+                description = "CSS selector of the element containing the year of the album as a 4-digit number")
+        String yearSelector() default "";
+
+        @AttributeDefinition(name = "Album image selector")
+        String imageSelector() default "";
+
+        @AttributeDefinition(
+                name = "Album image attribute",
+                description = "Attribute of the image element holding the image URL. Use abs:src to make it absolute")
+        String imageAttribute() default "src";
+
+        @AttributeDefinition(name = "Track selector", description = "CSS selector of the element of every track")
+        String trackSelector() default "";
+
+        @AttributeDefinition(
+                name = "Track title selector",
+                description = "CSS selector of the track title within the track element. Leave empty to use the text "
+                        + "of the whole track element")
+        String trackTitleSelector() default "";
+
+        @AttributeDefinition(
+                name = "Track duration selector",
+                description = "CSS selector of the track duration within the track element")
+        String trackDurationSelector() default "";
+
+        @AttributeDefinition(
+                name = "Max parallel album requests",
+                description = "Number of album pages fetched and parsed concurrently. 1 means sequential retrieval",
+                type = AttributeType.INTEGER)
+        int maxParallelism() default 2;
+
+        @AttributeDefinition(
+                name = "Max list pages",
+                description = "Number of album list pages to crawl in one run",
+                type = AttributeType.INTEGER)
+        int maxPages() default 1;
+
+        @AttributeDefinition(
+                name = "Max albums",
+                description = "Number of album pages to retrieve in one run",
+                type = AttributeType.INTEGER)
+        int maxItems() default 10;
+
+        @AttributeDefinition(
+                name = "Stop at stored album",
+                description = "Stop crawling when reaching an album that already exists in the albums folder",
+                type = AttributeType.BOOLEAN)
+        boolean stopAtKnownAlbum() default false;
+
+        @AttributeDefinition(
+                name = "Stream album list pages",
+                description = "Scan album list pages for links while they download and stop reading once enough links "
+                        + "are found, instead of parsing every page into a DOM",
+                type = AttributeType.BOOLEAN)
+        boolean streamListPages() default true;
+
+        @AttributeDefinition(
+                name = "Page cache size",
+                description = "Number of pages remembered with their ETag and Last-Modified values so that "
+                        + "unchanged pages are not downloaded and parsed again. 0 disables the cache",
+                type = AttributeType.INTEGER)
+        int cacheSize() default 500;
+
+        @AttributeDefinition(
+                name = "Requests per second",
+                description = "Max number of requests per second sent to the same host. 0 means no limit",
+                type = AttributeType.DOUBLE)
+        double requestsPerSecond() default 2;
+
+        @AttributeDefinition(
+                name = "Max retries",
+                description = "Number of retries after a timeout, a connection error, or an HTTP 429 or 5xx response",
+                type = AttributeType.INTEGER)
+        int maxRetries() default 2;
+
+        @AttributeDefinition(
+                name = "Retry delay",
+                description = "Delay before the first retry in milliseconds. Doubles with every next retry",
+                type = AttributeType.LONG)
+        long retryDelay() default 500;
+
+        @AttributeDefinition(name = "Max retry delay", type = AttributeType.LONG)
+        long maxRetryDelay() default 5_000;
+
+        @AttributeDefinition(
+                name = "Failure threshold",
+                description = "Number of consecutive failed requests after which the source is skipped. "
+                        + "0 means the source is never skipped",
+                type = AttributeType.INTEGER)
+        int failureThreshold() default 5;
+
+        @AttributeDefinition(
+                name = "Skip period",
+                description = "Time in milliseconds during which a failing source is skipped before it is tried again",
+                type = AttributeType.LONG)
+        long circuitOpenTime() default 300_000;
+
+        String webconsole_configurationFactory_nameHint() default "{name}";
+    }
+}
@@ -0,0 +1,101 @@
+package com.exadel.aem.core.services.impl;
+
+import com.exadel.aem.core.dto.AlbumDto;
+import com.exadel.aem.core.dto.ArtistDto;
+import com.exadel.aem.core.dto.TrackDto;
+import org.apache.commons.lang3.StringUtils;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Collector;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.QueryParser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Reads album fields with the CSS selectors given in the configuration of a ScraperDownloader
+class SelectorAlbumParser extends AlbumPageParser {
+
+    private static final Pattern YEAR_PATTERN = Pattern.compile("\\b\\d{4}\\b");
+
+    private final Evaluator title;
+    private final Evaluator artist;
+    private final Evaluator artistDescription;
+    private final Evaluator year;
+    private final Evaluator image;
+    private final String imageAttribute;
+    private final Evaluator track;
+    private final Evaluator trackTitle;
+    private final Evaluator trackDuration;
+
+    SelectorAlbumParser(ScraperDownloader.Config config) {
+        super(Pattern.compile(config.linkPattern()));
+        this.title = compile(config.titleSelector());
+        this.artist = compile(config.artistSelector());
+        this.artistDescription = compile(config.artistDescriptionSelector());
+        this.year = compile(config.yearSelector());
+        this.image = compile(config.imageSelector());
+        this.imageAttribute = StringUtils.defaultIfBlank(config.imageAttribute(), "src");
+        this.track = compile(config.trackSelector());
+        this.trackTitle = compile(config.trackTitleSelector());
+        this.trackDuration = compile(config.trackDurationSelector());
+    }
+
+    @Override
+    public AlbumDto parseAlbum(Document document) {
+        String albumTitle = getText(title, document);
+        String artistName = getText(artist, document);
+        if (StringUtils.isAnyEmpty(albumTitle, artistName)) {
+            return null;
+        }
+        return new AlbumDto(
+                albumTitle,
+                new ArtistDto(artistName, StringUtils.defaultString(getText(artistDescription, document))),
+                getYear(document),
+                getImagePath(document),
+                getTracks(document));
+    }
+
+    private int getYear(Document document) {
+        String text = getText(year, document);
+        if (text == null) {
+            return 0;
+        }
+        Matcher matcher = YEAR_PATTERN.matcher(text);
+        return matcher.find() ? Integer.parseInt(matcher.group()) : 0;
+    }
+
+    private String getImagePath(Document document) {
+        Element element = image != null ? Collector.findFirst(image, document) : null;
+        return element != null ? StringUtils.defaultIfEmpty(element.attr(imageAttribute), null) : null;
+    }
+
+    private List<TrackDto> getTracks(Document document) {
+        if (track == null) {
+            return Collections.emptyList();
+        }
+        List<TrackDto> result = new ArrayList<>();
+        for (Element trackElement : Collector.collect(track, document)) {
+            String text = trackTitle != null ? getText(trackTitle, trackElement) : trackElement.text();
+            if (StringUtils.isNotEmpty(text)) {
+                result.add(new TrackDto(text, StringUtils.defaultString(getText(trackDuration, trackElement))));
+            }
+        }
+        return result;
+    }
+
+    private static String getText(Evaluator evaluator, Element root) {
+        if (evaluator == null) {
+            return null;
+        }
+        Element element = Collector.findFirst(evaluator, root);
+        return element != null ? StringUtils.defaultIfEmpty(element.text(), null) : null;
+    }
+
+    private static Evaluator compile(String selector) {
+        return StringUtils.isNotBlank(selector) ? QueryParser.parse(selector) : null;
+    }
+}
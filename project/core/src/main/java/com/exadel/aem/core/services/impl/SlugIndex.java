@@ -0,0 +1,43 @@
+package com.exadel.aem.core.services.impl;
+
+import org.apache.sling.api.resource.Resource;
+
+import java.util.HashSet;
+import java.util.Set;
+
+class SlugIndex {
+
+    private final Resource folder;
+
+    private final Set<String> slugs = new HashSet<>();
+
+    SlugIndex(Resource folder) {
+        this.folder = folder;
+        reload();
+    }
+
+    Resource getFolder() {
+        return folder;
+    }
+
+    boolean contains(String slug) {
+        return slugs.contains(slug);
+    }
+
+    void add(String slug) {
+        slugs.add(slug);
+    }
+
+    void reload() {
+        slugs.clear();
+        slugs.addAll(getChildNames(folder));
+    }
+
+    static Set<String> getChildNames(Resource folder) {
+        Set<String> result = new HashSet<>();
+        for (Resource child : folder.getChildren()) {
+            result.add(child.getName());
+        }
+        return result;
+    }
+}
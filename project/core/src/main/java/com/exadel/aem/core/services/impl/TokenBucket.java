@@ -0,0 +1,36 @@
+package com.exadel.aem.core.services.impl;
+
+import java.util.concurrent.TimeUnit;
+
+class TokenBucket {
+
+    private final double tokensPerNano;
+
+    private final double capacity;
+
+    private double tokens;
+
+    private long lastRefill;
+
+    TokenBucket(double tokensPerSecond, double capacity) {
+        this.tokensPerNano = tokensPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = capacity;
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    void acquire() throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+            lastRefill = now;
+            // The token is reserved right away, so that concurrent callers queue up behind each other
+            tokens -= 1;
+            waitNanos = tokens >= 0 ? 0 : (long) (-tokens / tokensPerNano);
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
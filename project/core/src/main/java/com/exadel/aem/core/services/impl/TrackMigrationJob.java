@@ -0,0 +1,52 @@
+package com.exadel.aem.core.services.impl;
+
+import com.exadel.aem.core.Constants;
+import com.exadel.aem.core.services.ResourceResolverHost;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.event.jobs.Job;
+import org.apache.sling.event.jobs.consumer.JobConsumer;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Converts the tracks of all the existing albums from child nodes to multi-value properties
+@Component(service = JobConsumer.class, property = JobConsumer.PROPERTY_TOPICS + "=" + Constants.TRACK_MIGRATION_TOPIC)
+public class TrackMigrationJob implements JobConsumer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TrackMigrationJob.class);
+
+    private static final int BATCH_SIZE = 50;
+
+    @Reference
+    private ResourceResolverHost resourceResolverHost;
+
+    @Override
+    public JobResult process(Job job) {
+        AtomicInteger migrated = new AtomicInteger();
+        try {
+            resourceResolverHost.execute(resolver -> {
+                Resource albumsFolder = resolver.getResource(Constants.ALBUMS_FOLDER);
+                if (albumsFolder == null) {
+                    return;
+                }
+                for (Resource page : albumsFolder.getChildren()) {
+                    Resource albumResource = page.getChild(Constants.ALBUM_RESOURCE_PATH);
+                    if (albumResource != null
+                            && TrackStorage.migrate(resolver, albumResource)
+                            && migrated.incrementAndGet() % BATCH_SIZE == 0) {
+                        resolver.commit();
+                    }
+                }
+                resolver.commit();
+            });
+        } catch (Exception e) {
+            LOG.error("Track migration failed after {} albums", migrated.get(), e);
+            return JobResult.FAILED;
+        }
+        LOG.info("Tracks of {} albums migrated", migrated.get());
+        return JobResult.OK;
+    }
+}
@@ -0,0 +1,63 @@
+package com.exadel.aem.core.services.impl;
+
+import com.day.cq.commons.jcr.JcrConstants;
+import com.exadel.aem.core.Constants;
+import com.exadel.aem.core.dto.TrackDto;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.sling.api.resource.ModifiableValueMap;
+import org.apache.sling.api.resource.PersistenceException;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ValueMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Tracks are kept either as a "tracks" node with a child node per track, or as two multi-value properties of the
+// album resource holding track titles and durations at matching positions. The latter takes two properties instead of
+// a node per track
+class TrackStorage {
+
+    static final String PN_DURATION = "duration";
+
+    private TrackStorage() {
+    }
+
+    static Map<String, Object> toProperties(List<TrackDto> tracks) {
+        if (tracks == null || tracks.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        String[] titles = new String[tracks.size()];
+        String[] durations = new String[tracks.size()];
+        for (int i = 0; i < tracks.size(); i++) {
+            titles[i] = StringUtils.defaultString(tracks.get(i).getTitle());
+            durations[i] = StringUtils.defaultString(tracks.get(i).getDuration());
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put(Constants.PN_TRACK_TITLES, titles);
+        result.put(Constants.PN_TRACK_DURATIONS, durations);
+        return result;
+    }
+
+    // Moves the tracks of an album from child nodes to properties. Returns false if the album has no track nodes
+    static boolean migrate(ResourceResolver resolver, Resource albumResource) throws PersistenceException {
+        Resource tracksRoot = albumResource.getChild(Constants.TRACKS_NODE);
+        ModifiableValueMap valueMap = albumResource.adaptTo(ModifiableValueMap.class);
+        if (tracksRoot == null || valueMap == null) {
+            return false;
+        }
+        List<TrackDto> tracks = new ArrayList<>();
+        for (Resource track : tracksRoot.getChildren()) {
+            ValueMap trackValueMap = track.getValueMap();
+            tracks.add(new TrackDto(
+                    trackValueMap.get(JcrConstants.JCR_TITLE, String.class),
+                    trackValueMap.get(PN_DURATION, String.class)));
+        }
+        valueMap.putAll(toProperties(tracks));
+        resolver.delete(tracksRoot);
+        return true;
+    }
+}
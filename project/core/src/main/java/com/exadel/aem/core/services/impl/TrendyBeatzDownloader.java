@@ -1,149 +1,80 @@
 package com.exadel.aem.core.services.impl;
 
 import com.exadel.aem.core.dto.AlbumDto;
-import com.exadel.aem.core.dto.ArtistDto;
-import com.exadel.aem.core.dto.TrackDto;
-import org.apache.commons.lang3.StringUtils;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
+import com.exadel.aem.core.dto.RetrievalReport;
+import com.exadel.aem.core.services.AlbumPublisher;
+import com.exadel.aem.core.services.AlbumShard;
+import com.exadel.aem.core.services.HttpFetcher;
+import com.exadel.aem.core.services.IngestionMetrics;
+import com.exadel.aem.core.services.ResourceResolverHost;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.metatype.annotations.AttributeDefinition;
 import org.osgi.service.metatype.annotations.AttributeType;
 import org.osgi.service.metatype.annotations.Designate;
 import org.osgi.service.metatype.annotations.ObjectClassDefinition;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
+
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
-@Component(immediate = true)
+@Component(service = Supplier.class, immediate = true)
 @Designate(ocd = TrendyBeatzDownloader.Config.class)
-public class TrendyBeatzDownloader implements Supplier<List<AlbumDto>> {
-
-    private static final Logger LOG = LoggerFactory.getLogger(TrendyBeatzDownloader.class);
-
-    private static final int LINKS_LIMIT = 10;
-
-    private String listUrl;
-    private Pattern linkPattern;
-    private Pattern trackLinkPattern;
-    private int timeout;
-
-    @Override
-    public List<AlbumDto> get() {
-        try {
-            Document document = Jsoup.connect(listUrl).timeout(timeout).get();
-            Elements albumLinks = document.getElementsByAttributeValueMatching("href", linkPattern);
-            return albumLinks
-                    .stream()
-                    .limit(LINKS_LIMIT)
-                    .map(element -> element.attr("href"))
-                    .map(this::getAlbum)
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList());
-        } catch (IOException e) {
-            LOG.error("Could not retrieve album list at {}", listUrl, e);
-        }
-        return Collections.emptyList();
-    }
+public class TrendyBeatzDownloader implements AlbumPublisher {
 
-    private AlbumDto getAlbum(String link) {
-        Document document;
-        try {
-            document = Jsoup.connect(link).timeout(timeout).get();
-        } catch (IOException e) {
-            LOG.error("Could not retrieve album details at {}", link, e);
-            return null;
-        }
+    @Reference
+    private ResourceResolverHost resourceResolverHost;
 
-        String albumTitle = getTitle(document);
-        String artistName = getArtistName(document);
-        int albumYear = getYear(document);
-        String albumImage = getImagePath(document);
-
-        return StringUtils.isNoneEmpty(albumTitle, artistName)
-                ? new AlbumDto(
-                        albumTitle,
-                        new ArtistDto(artistName, StringUtils.EMPTY),
-                        albumYear,
-                        albumImage,
-                        getAlbumTracks(document))
-                : null;
-    }
+    @Reference
+    private HttpFetcher httpFetcher;
 
-    private String getTitle(Document document) {
-        return Optional
-                .of(document.getElementsMatchingOwnText("Title:"))
-                .map(Elements::first)
-                .map(Element::parent)
-                .map(elt -> elt.getElementsByTag("span"))
-                .map(Elements::first)
-                .map(Element::text)
-                .orElse(null);
-    }
+    @Reference
+    private IngestionMetrics metrics;
 
-    private String getArtistName(Document document) {
-        return Optional
-                .ofNullable(document.getElementById("artistname"))
-                .map(elt -> elt.getElementsByTag("span"))
-                .map(Elements::text)
-                .orElse(null);
-    }
+    private AlbumCrawler crawler;
 
-    private int getYear(Document document) {
-        return Optional
-                .of(document.getElementsMatchingOwnText("Year:"))
-                .map(Elements::first)
-                .map(Element::parent)
-                .map(elt -> elt.getElementsByTag("a"))
-                .map(Elements::first)
-                .map(Element::text)
-                .flatMap(text -> Arrays.stream(StringUtils.split(text, " ")).filter(StringUtils::isNumeric).findFirst())
-                .map(Integer::parseInt)
-                .orElse(0);
+    @Override
+    public void publish(Consumer<AlbumDto> consumer, AlbumShard shard, RetrievalReport report) {
+        crawler.publish(consumer, shard, report);
     }
 
-    private String getImagePath(Document document) {
-        return Optional
-                .of(document.getElementsByAttributeValueStarting("alt", "Download"))
-                .map(elements -> elements.select("img"))
-                .map(Elements::first)
-                .map(element -> element.attr("src"))
-                .orElse(null);
+    @Activate
+    private void doActivate(Config config) {
+        AlbumCrawler.Settings settings = new AlbumCrawler.Settings();
+        settings.listUrl = config.listUrl();
+        settings.pageUrlFormat = config.pageUrlFormat();
+        settings.maxPages = config.maxPages();
+        settings.maxItems = config.maxItems();
+        settings.stopAtKnownAlbum = config.stopAtKnownAlbum();
+        settings.streamListPages = config.streamListPages();
+        settings.parallelism = config.maxParallelism();
+        settings.cacheSize = config.cacheSize();
+        settings.requestsPerSecond = config.requestsPerSecond();
+        settings.maxRetries = config.maxRetries();
+        settings.retryDelay = config.retryDelay();
+        settings.maxRetryDelay = config.maxRetryDelay();
+        settings.failureThreshold = config.failureThreshold();
+        settings.circuitOpenTime = config.circuitOpenTime();
+        TrendyBeatzParser parser = new TrendyBeatzParser(
+                Pattern.compile(config.linkPattern()),
+                Pattern.compile(config.trackLinkPattern()));
+        this.crawler = new AlbumCrawler(
+                "TrendyBeatz Downloader",
+                parser,
+                settings,
+                httpFetcher,
+                resourceResolverHost,
+                metrics);
     }
 
-    private List<TrackDto> getAlbumTracks(Document document) {
-        List<TrackDto> result = new ArrayList<>();
-        Elements trackLinks = document.getElementsByAttributeValueMatching("href", trackLinkPattern);
-        for (Element trackLink : trackLinks) {
-            Optional.of(trackLink)
-                    .map(Element::parent)
-                    .map(elt -> elt.getElementsByTag("h1"))
-                    .map(Elements::first)
-                    .map(Element::text)
-                    .ifPresent(text -> result.add(new TrackDto(text, StringUtils.EMPTY)));
+    @Deactivate
+    private void doDeactivate() {
+        if (crawler != null) {
+            crawler.close();
+            crawler = null;
         }
-        return result;
-    }
-
-    @Activate
-    private void doActivate(Config config) {
-        this.listUrl = config.listUrl();
-        this.linkPattern = Pattern.compile(config.linkPattern());
-        this.trackLinkPattern = Pattern.compile(config.trackLinkPattern());
-        this.timeout = config.timeout();
     }
 
     @ObjectClassDefinition(name = "TrendyBeatz Configuration")
@@ -152,13 +83,88 @@ public class TrendyBeatzDownloader implements Supplier<List<AlbumDto>> {
         @AttributeDefinition(name = "Albums List URL")
         String listUrl() default "https://trendybeatz.com/artist-albums";
 
+        @AttributeDefinition(
+                name = "Album List Page URL Format",
+                description = "URL of the further album list pages where %d stands for the page number (2, 3, etc.). "
+                        + "Leave empty to read only the first page")
+        String pageUrlFormat() default "https://trendybeatz.com/artist-albums?page=%d";
+
         @AttributeDefinition(name = "Album Link Pattern")
         String linkPattern() default "trendybeatz\\.com/artist-albums/\\d+/[\\w-]+$";
 
         @AttributeDefinition(name = "Album Track Link Pattern")
         String trackLinkPattern() default "trendybeatz\\.com/download-mp3/\\d+/[\\w-]+$";
 
-        @AttributeDefinition(name = "Connection timeout", type = AttributeType.INTEGER)
-        int timeout() default 10_000;
+        @AttributeDefinition(
+                name = "Max parallel album requests",
+                description = "Number of album pages fetched and parsed concurrently. 1 means sequential retrieval",
+                type = AttributeType.INTEGER)
+        int maxParallelism() default 4;
+
+        @AttributeDefinition(
+                name = "Max list pages",
+                description = "Number of album list pages to crawl in one run",
+                type = AttributeType.INTEGER)
+        int maxPages() default 1;
+
+        @AttributeDefinition(
+                name = "Max albums",
+                description = "Number of album pages to retrieve in one run",
+                type = AttributeType.INTEGER)
+        int maxItems() default 10;
+
+        @AttributeDefinition(
+                name = "Stop at stored album",
+                description = "Stop crawling when reaching an album that already exists in the albums folder",
+                type = AttributeType.BOOLEAN)
+        boolean stopAtKnownAlbum() default false;
+
+        @AttributeDefinition(
+                name = "Stream album list pages",
+                description = "Scan album list pages for links while they download and stop reading once enough links "
+                        + "are found, instead of parsing every page into a DOM",
+                type = AttributeType.BOOLEAN)
+        boolean streamListPages() default true;
+
+        @AttributeDefinition(
+                name = "Page cache size",
+                description = "Number of pages remembered with their ETag and Last-Modified values so that "
+                        + "unchanged pages are not downloaded and parsed again. 0 disables the cache",
+                type = AttributeType.INTEGER)
+        int cacheSize() default 500;
+
+        @AttributeDefinition(
+                name = "Requests per second",
+                description = "Max number of requests per second sent to the same host. 0 means no limit",
+                type = AttributeType.DOUBLE)
+        double requestsPerSecond() default 5;
+
+        @AttributeDefinition(
+                name = "Max retries",
+                description = "Number of retries after a timeout, a connection error, or an HTTP 429 or 5xx response",
+                type = AttributeType.INTEGER)
+        int maxRetries() default 2;
+
+        @AttributeDefinition(
+                name = "Retry delay",
+                description = "Delay before the first retry in milliseconds. Doubles with every next retry",
+                type = AttributeType.LONG)
+        long retryDelay() default 500;
+
+        @AttributeDefinition(name = "Max retry delay", type = AttributeType.LONG)
+        long maxRetryDelay() default 5_000;
+
+        @AttributeDefinition(
+                name = "Failure threshold",
+                description = "Number of consecutive failed requests after which the source is skipped. "
+                        + "0 means the source is never skipped",
+                type = AttributeType.INTEGER)
+        int failureThreshold() default 5;
+
+        @AttributeDefinition(
+                name = "Skip period",
+                description = "Time in milliseconds during which a failing source is skipped before it is tried again",
+                type = AttributeType.LONG)
+        long circuitOpenTime() default 300_000;
     }
 }
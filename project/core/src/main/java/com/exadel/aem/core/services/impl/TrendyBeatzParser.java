@@ -0,0 +1,177 @@
+package com.exadel.aem.core.services.impl;
+
+import com.exadel.aem.core.dto.AlbumDto;
+import com.exadel.aem.core.dto.ArtistDto;
+import com.exadel.aem.core.dto.TrackDto;
+import org.apache.commons.lang3.StringUtils;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.select.Collector;
+import org.jsoup.select.Elements;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.NodeVisitor;
+import org.jsoup.select.QueryParser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+public class TrendyBeatzParser extends AlbumPageParser {
+
+    private final Pattern trackLinkPattern;
+
+    public TrendyBeatzParser(Pattern linkPattern, Pattern trackLinkPattern) {
+        super(linkPattern);
+        this.trackLinkPattern = trackLinkPattern;
+    }
+
+    @Override
+    public AlbumDto parseAlbum(Document document) {
+        AlbumExtractor extractor = new AlbumExtractor(trackLinkPattern);
+        NodeTraversor.traverse(extractor, document);
+
+        String albumTitle = extractor.getTitle();
+        String artistName = extractor.getArtistName();
+        return StringUtils.isNoneEmpty(albumTitle, artistName)
+                ? new AlbumDto(
+                        albumTitle,
+                        new ArtistDto(artistName, StringUtils.EMPTY),
+                        extractor.getYear(),
+                        extractor.getImagePath(),
+                        extractor.getTracks())
+                : null;
+    }
+
+    // Collects the elements holding album fields in a single pass over the document. Only the small subtrees of the
+    // found elements are searched afterwards
+    private static class AlbumExtractor implements NodeVisitor {
+
+        private static final String TITLE_LABEL = "Title:";
+        private static final String YEAR_LABEL = "Year:";
+        private static final String ARTIST_ID = "artistname";
+        private static final String IMAGE_ALT_PREFIX = "download";
+
+        private static final String ATTR_ALT = "alt";
+        private static final String ATTR_HREF = "href";
+        private static final String ATTR_SRC = "src";
+        private static final String TAG_IMG = "img";
+
+        private static final Evaluator SPAN = QueryParser.parse("span");
+        private static final Evaluator LINK = QueryParser.parse("a");
+        private static final Evaluator HEADING = QueryParser.parse("h1");
+
+        private final Pattern trackLinkPattern;
+
+        private final List<Element> trackLinks = new ArrayList<>();
+
+        private Element titleLabel;
+        private Element yearLabel;
+        private Element artist;
+        private Element imageRoot;
+        private String imagePath;
+
+        AlbumExtractor(Pattern trackLinkPattern) {
+            this.trackLinkPattern = trackLinkPattern;
+        }
+
+        @Override
+        public void head(Node node, int depth) {
+            if (!(node instanceof Element)) {
+                return;
+            }
+            Element element = (Element) node;
+            if (titleLabel == null && ownTextContains(element, TITLE_LABEL)) {
+                titleLabel = element;
+            }
+            if (yearLabel == null && ownTextContains(element, YEAR_LABEL)) {
+                yearLabel = element;
+            }
+            if (artist == null && ARTIST_ID.equals(element.id())) {
+                artist = element;
+            }
+            if (imagePath == null) {
+                // The image is the first <img> within the first element with the "Download..." alt text that has one
+                if (imageRoot == null
+                        && element.hasAttr(ATTR_ALT)
+                        && StringUtils.startsWithIgnoreCase(element.attr(ATTR_ALT), IMAGE_ALT_PREFIX)) {
+                    imageRoot = element;
+                }
+                if (imageRoot != null && TAG_IMG.equals(element.normalName())) {
+                    imagePath = element.attr(ATTR_SRC);
+                }
+            }
+            if (element.hasAttr(ATTR_HREF) && trackLinkPattern.matcher(element.attr(ATTR_HREF)).find()) {
+                trackLinks.add(element);
+            }
+        }
+
+        @Override
+        public void tail(Node node, int depth) {
+            if (node == imageRoot && imagePath == null) {
+                imageRoot = null;
+            }
+        }
+
+        String getTitle() {
+            return Optional
+                    .ofNullable(titleLabel)
+                    .map(Element::parent)
+                    .map(elt -> Collector.findFirst(SPAN, elt))
+                    .map(Element::text)
+                    .orElse(null);
+        }
+
+        String getArtistName() {
+            return Optional
+                    .ofNullable(artist)
+                    .map(elt -> Collector.collect(SPAN, elt))
+                    .map(Elements::text)
+                    .orElse(null);
+        }
+
+        int getYear() {
+            return Optional
+                    .ofNullable(yearLabel)
+                    .map(Element::parent)
+                    .map(elt -> Collector.findFirst(LINK, elt))
+                    .map(Element::text)
+                    .flatMap(text -> Arrays
+                            .stream(StringUtils.split(text, " "))
+                            .filter(StringUtils::isNumeric)
+                            .findFirst())
+                    .map(Integer::parseInt)
+                    .orElse(0);
+        }
+
+        String getImagePath() {
+            return imagePath;
+        }
+
+        List<TrackDto> getTracks() {
+            List<TrackDto> result = new ArrayList<>();
+            for (Element trackLink : trackLinks) {
+                Optional.of(trackLink)
+                        .map(Element::parent)
+                        .map(elt -> Collector.findFirst(HEADING, elt))
+                        .map(Element::text)
+                        .ifPresent(text -> result.add(new TrackDto(text, StringUtils.EMPTY)));
+            }
+            return result;
+        }
+
+        private static boolean ownTextContains(Element element, String text) {
+            for (int i = 0; i < element.childNodeSize(); i++) {
+                Node child = element.childNode(i);
+                if (child instanceof TextNode && ((TextNode) child).getWholeText().contains(text)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
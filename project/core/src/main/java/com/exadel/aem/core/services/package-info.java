@@ -1,4 +1,4 @@
-@Version("1.0")
+@Version("5.0")
 package com.exadel.aem.core.services;
 
 import org.osgi.annotation.versioning.Version;
\ No newline at end of file
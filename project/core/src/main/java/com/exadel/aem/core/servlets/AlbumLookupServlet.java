@@ -0,0 +1,74 @@
+package com.exadel.aem.core.servlets;
+
+import com.exadel.aem.core.services.AlbumLookup;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.http.HttpStatus;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.SlingHttpServletResponse;
+import org.apache.sling.api.servlets.SlingSafeMethodsServlet;
+import org.apache.sling.servlets.annotations.SlingServletPaths;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.Servlet;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+@Component(service = Servlet.class, immediate = true)
+@SlingServletPaths("/services/findAlbums")
+public class AlbumLookupServlet extends SlingSafeMethodsServlet {
+    private static final Logger LOG = LoggerFactory.getLogger(AlbumLookupServlet.class);
+
+    private static final String PARAMETER_ARTIST = "artist";
+    private static final String PARAMETER_YEAR = "year";
+    private static final String PARAMETER_OFFSET = "offset";
+    private static final String PARAMETER_LIMIT = "limit";
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 100;
+
+    @Reference
+    private transient AlbumLookup albumLookup;
+
+    @Override
+    protected void doGet(
+            SlingHttpServletRequest request,
+            SlingHttpServletResponse response) throws IOException {
+
+        String artist = request.getParameter(PARAMETER_ARTIST);
+        int year = NumberUtils.toInt(request.getParameter(PARAMETER_YEAR));
+        int offset = Math.max(0, NumberUtils.toInt(request.getParameter(PARAMETER_OFFSET)));
+        int limit = NumberUtils.toInt(request.getParameter(PARAMETER_LIMIT), DEFAULT_LIMIT);
+        limit = Math.min(MAX_LIMIT, Math.max(1, limit));
+        response.setContentType("application/json");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        JsonObject result = new JsonObject();
+        if (StringUtils.isEmpty(artist) && year <= 0) {
+            response.setStatus(HttpStatus.SC_BAD_REQUEST);
+            result.addProperty("error", "Either an artist or a year is required");
+            response.getWriter().print(result.toString());
+            return;
+        }
+        try {
+            List<String> paths = StringUtils.isNotEmpty(artist)
+                    ? albumLookup.findByArtist(artist, offset, limit)
+                    : albumLookup.findByYear(year, offset, limit);
+            JsonArray items = new JsonArray();
+            paths.forEach(items::add);
+            result.addProperty(PARAMETER_OFFSET, offset);
+            result.addProperty(PARAMETER_LIMIT, limit);
+            result.add("items", items);
+        } catch (Exception e) {
+            LOG.error("Could not look up albums", e);
+            response.setStatus(HttpStatus.SC_INTERNAL_SERVER_ERROR);
+            result.addProperty("error", e.getMessage());
+        }
+        response.getWriter().print(result.toString());
+    }
+}
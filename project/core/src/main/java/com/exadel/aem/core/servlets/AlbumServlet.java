@@ -15,7 +15,12 @@
  */
 package com.exadel.aem.core.servlets;
 
-import com.exadel.aem.core.services.AlbumRetriever;
+import com.exadel.aem.core.dto.RetrievalReport;
+import com.exadel.aem.core.services.AlbumRetrievalQueue;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpStatus;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.SlingHttpServletResponse;
@@ -26,21 +31,41 @@ import org.osgi.service.component.annotations.Reference;
 
 import javax.servlet.Servlet;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
 
 @Component(service = Servlet.class, immediate = true)
 @SlingServletPaths("/services/getAlbums")
 public class AlbumServlet extends SlingAllMethodsServlet {
 
+    private static final String PARAMETER_ID = "id";
+    private static final String CONTENT_TYPE_JSON = "application/json";
+
     @Reference
-    private AlbumRetriever albumRetriever;
+    private transient AlbumRetrievalQueue albumRetrievalQueue;
 
     @Override
     protected void doGet(
             SlingHttpServletRequest request,
             SlingHttpServletResponse response) throws IOException {
 
-        response.setStatus(HttpStatus.SC_BAD_REQUEST);
-        response.getWriter().println("Please use a POST request.");
+        String id = request.getParameter(PARAMETER_ID);
+        if (StringUtils.isEmpty(id)) {
+            JsonArray result = new JsonArray();
+            albumRetrievalQueue.getReports().forEach(report -> result.add(toJson(report)));
+            write(response, result);
+            return;
+        }
+        RetrievalReport report = albumRetrievalQueue.getReport(id);
+        if (report == null) {
+            response.setStatus(HttpStatus.SC_NOT_FOUND);
+            JsonObject result = new JsonObject();
+            result.addProperty("error", "Unknown retrieval " + id);
+            write(response, result);
+            return;
+        }
+        write(response, toJson(report));
     }
 
     @Override
@@ -48,12 +73,49 @@ public class AlbumServlet extends SlingAllMethodsServlet {
             SlingHttpServletRequest request,
             SlingHttpServletResponse response) throws IOException {
 
-        try {
-            albumRetriever.retrieveNewAlbums();
-            response.getWriter().println("Completed.");
-        } catch (Exception e) {
-            response.setStatus(HttpStatus.SC_INTERNAL_SERVER_ERROR);
-            response.getWriter().println(e.getMessage());
+        RetrievalReport report = albumRetrievalQueue.submit();
+        response.setStatus(HttpStatus.SC_ACCEPTED);
+        response.setHeader("Location", request.getRequestURI() + "?" + PARAMETER_ID + "=" + report.getId());
+        write(response, toJson(report));
+    }
+
+    private static void write(SlingHttpServletResponse response, JsonElement json) throws IOException {
+        response.setContentType(CONTENT_TYPE_JSON);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().print(json.toString());
+    }
+
+    private static JsonObject toJson(RetrievalReport report) {
+        JsonObject result = new JsonObject();
+        result.addProperty("id", report.getId());
+        result.addProperty("state", report.getState().name());
+        result.addProperty("submitted", report.getSubmitted());
+        if (report.getStarted() > 0) {
+            result.addProperty("started", report.getStarted());
+        }
+        if (report.getFinished() > 0) {
+            result.addProperty("finished", report.getFinished());
+        }
+        if (report.getError() != null) {
+            result.addProperty("error", report.getError());
+        }
+        if (report.getJoinedId() != null) {
+            result.addProperty("joined", report.getJoinedId());
+        }
+        JsonObject counts = new JsonObject();
+        report.getCounts().forEach((counter, value) -> counts.addProperty(counter.name().toLowerCase(), value));
+        result.add("counts", counts);
+        JsonObject stageTimes = new JsonObject();
+        for (Map.Entry<String, Long> entry : new TreeMap<>(report.getStageTimes()).entrySet()) {
+            stageTimes.addProperty(entry.getKey(), entry.getValue());
         }
+        result.add("stageTimes", stageTimes);
+        JsonObject sources = new JsonObject();
+        new TreeMap<>(report.getSourceCounts()).forEach(sources::addProperty);
+        result.add("sources", sources);
+        JsonArray errors = new JsonArray();
+        report.getErrors().forEach(errors::add);
+        result.add("errors", errors);
+        return result;
     }
 }
@@ -0,0 +1,50 @@
+package com.exadel.aem.core.servlets;
+
+import com.exadel.aem.core.services.RetrievalReportStore;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.http.HttpStatus;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.SlingHttpServletResponse;
+import org.apache.sling.api.servlets.SlingSafeMethodsServlet;
+import org.apache.sling.servlets.annotations.SlingServletPaths;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.Servlet;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+@Component(service = Servlet.class, immediate = true)
+@SlingServletPaths("/services/albumRetrievalRuns")
+public class RetrievalRunsServlet extends SlingSafeMethodsServlet {
+    private static final Logger LOG = LoggerFactory.getLogger(RetrievalRunsServlet.class);
+
+    private static final String PARAMETER_LIMIT = "limit";
+    private static final int DEFAULT_LIMIT = 20;
+
+    @Reference
+    private transient RetrievalReportStore retrievalReportStore;
+
+    @Override
+    protected void doGet(
+            SlingHttpServletRequest request,
+            SlingHttpServletResponse response) throws IOException {
+
+        int limit = Math.max(1, NumberUtils.toInt(request.getParameter(PARAMETER_LIMIT), DEFAULT_LIMIT));
+        response.setContentType("application/json");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        try {
+            response.getWriter().print(new Gson().toJson(retrievalReportStore.getRecentRuns(limit)));
+        } catch (Exception e) {
+            LOG.error("Could not read album retrieval runs", e);
+            response.setStatus(HttpStatus.SC_INTERNAL_SERVER_ERROR);
+            JsonObject result = new JsonObject();
+            result.addProperty("error", e.getMessage());
+            response.getWriter().print(result.toString());
+        }
+    }
+}
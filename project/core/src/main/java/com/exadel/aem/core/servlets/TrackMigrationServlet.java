@@ -0,0 +1,44 @@
+package com.exadel.aem.core.servlets;
+
+import com.exadel.aem.core.Constants;
+import com.google.gson.JsonObject;
+import org.apache.http.HttpStatus;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.SlingHttpServletResponse;
+import org.apache.sling.api.servlets.SlingAllMethodsServlet;
+import org.apache.sling.event.jobs.Job;
+import org.apache.sling.event.jobs.JobManager;
+import org.apache.sling.servlets.annotations.SlingServletPaths;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+
+import javax.servlet.Servlet;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+@Component(service = Servlet.class, immediate = true)
+@SlingServletPaths("/services/migrateTracks")
+public class TrackMigrationServlet extends SlingAllMethodsServlet {
+
+    @Reference
+    private transient JobManager jobManager;
+
+    @Override
+    protected void doPost(
+            SlingHttpServletRequest request,
+            SlingHttpServletResponse response) throws IOException {
+
+        Job job = jobManager.addJob(Constants.TRACK_MIGRATION_TOPIC, null);
+        response.setContentType("application/json");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        JsonObject result = new JsonObject();
+        if (job == null) {
+            response.setStatus(HttpStatus.SC_INTERNAL_SERVER_ERROR);
+            result.addProperty("error", "Could not start the track migration");
+        } else {
+            response.setStatus(HttpStatus.SC_ACCEPTED);
+            result.addProperty("id", job.getId());
+        }
+        response.getWriter().print(result.toString());
+    }
+}
@@ -0,0 +1,49 @@
+package com.exadel.aem.core.utils;
+
+public class SlugUtils {
+
+    private static final char SEPARATOR = '-';
+
+    private SlugUtils() {
+    }
+
+    public static String toSlug(String value) {
+        if (value == null) {
+            return "";
+        }
+        int start = 0;
+        int end = value.length();
+        while (start < end && value.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        StringBuilder result = new StringBuilder(end - start);
+        boolean inReplacement = false;
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c == SEPARATOR || c == '_' || (c >= '0' && c <= '9') || (c >= 'a' && c <= 'z')) {
+                result.append(c);
+                inReplacement = false;
+            } else if (c >= 'A' && c <= 'Z') {
+                result.append((char) (c + ('a' - 'A')));
+                inReplacement = false;
+            } else if (!inReplacement) {
+                result.append(SEPARATOR);
+                inReplacement = true;
+            }
+        }
+        return result.toString();
+    }
+
+    public static String join(String first, String second) {
+        if (first.isEmpty()) {
+            return second;
+        }
+        if (second.isEmpty()) {
+            return first;
+        }
+        return first + SEPARATOR + second;
+    }
+}
@@ -1,4 +1,4 @@
-@Version("1.0")
+@Version("1.1")
 package com.exadel.aem.core.utils;
 
 import org.osgi.annotation.versioning.Version;
\ No newline at end of file